@@ -0,0 +1,56 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 웹 서버 없이 JPA 계층만 인메모리 H2로 띄움. SQL 로그는 측정값을 망치니까 다 끔
+ */
+public class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * extraProperties: "key=value" 형식. 벤치마크별로 설정을 바꿀 때 사용
+     * application.yml보다 우선해야 되니까 커맨드라인 인자(--key=value)로 넘김
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        args.add("--spring.jpa.properties.hibernate.format_sql=false");
+        args.add("--spring.jpa.properties.hibernate.generate_statistics=true"); // SQL 실행 수 측정용
+        args.add("--decorator.datasource.p6spy.enable-logging=false");
+        args.add("--logging.level.root=warn");
+        args.add("--logging.level.org.hibernate.SQL=warn");
+        args.add("--logging.level.org.hibernate.type=warn");
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    public static Statistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+}
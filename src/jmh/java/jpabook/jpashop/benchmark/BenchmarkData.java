@@ -0,0 +1,35 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.Service.CategoryService;
+import jpabook.jpashop.Service.OrderSummaryService;
+import jpabook.jpashop.Service.ResourceVersionService;
+import jpabook.jpashop.Service.SalesService;
+import jpabook.jpashop.Service.VersionedResource;
+import jpabook.jpashop.datagen.BulkDataGenerator;
+import jpabook.jpashop.datagen.DataGeneratorProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 주문 수 x 주문당 상품 수 만큼 데이터 적재 (BulkDataGenerator 사용)
+ */
+public class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int orders, int itemsPerOrder) {
+        DataGeneratorProperties props = new DataGeneratorProperties();
+        props.setMembers(Math.max(1, orders / 10));
+        props.setItems(Math.max(itemsPerOrder, 100));
+        props.setCategories(10);
+        props.setOrders(orders);
+        props.setMinItemsPerOrder(itemsPerOrder);
+        props.setMaxItemsPerOrder(itemsPerOrder);
+        context.getBean(BulkDataGenerator.class).generate(props);
+        // 시작할 때 만든 캐시/스냅샷에는 jdbc로 넣은 데이터가 없으니 다시 맞춤
+        context.getBean(CategoryService.class).invalidate();
+        context.getBean(OrderSummaryService.class).rebuild();
+        context.getBean(SalesService.class).rebuild();
+        context.getBean(ResourceVersionService.class).bump(VersionedResource.values());
+    }
+}
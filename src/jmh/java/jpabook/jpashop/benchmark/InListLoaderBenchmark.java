@@ -0,0 +1,50 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 5만 건의 주문상품을 in으로 읽는 시간 (v5, 트랜잭션 밖)
+ * - single: chunk 하나에 id 전부 (예전처럼 in 하나), 스레드 1
+ * - chunked: 500개씩 잘라서 4스레드로 동시에 (ChunkedInLoader 기본값)
+ * 응답 하나가 걸리는 시간이라 평균 시간(ms/op)으로 봄
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class InListLoaderBenchmark {
+
+    @Param({"50000"})
+    public int orders;
+
+    @Param({"single", "chunked"})
+    public String loader;
+
+    private ConfigurableApplicationContext context;
+    private OrderQueryRepository orderQueryRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = "single".equals(loader)
+                ? BenchmarkContext.start("jpashop.in-loader.chunk-size=" + orders, "jpashop.in-loader.threads=1")
+                : BenchmarkContext.start();
+        BenchmarkData.seed(context, orders, 2);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object ordersV5() {
+        return orderQueryRepository.findAllByDto_optimization();
+    }
+}
@@ -0,0 +1,167 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.repository.order.jdbc.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 전략별 비교
+ * - 처리량: ops/s
+ * - 할당률: -prof gc 의 gc.alloc.rate.norm (B/op)
+ * - SQL 수: statements 보조 카운터 (statements/s 를 ops/s 로 나누면 호출당 SQL 수)
+ *
+ * *_jdbc는 같은 DTO를 JDBC로 조회한 것. orders 파라미터(100 -> 1000)에 따라 벌어지는 차이를 주문 수로 나누면
+ * JPA 경로의 row당 비용(jpql 처리, 생성자 리플렉션 등)이 나옴
+ *
+ * OSIV를 꺼뒀으니까 엔티티를 DTO로 바꾸는 버전(v2, v3)은 트랜잭션 안에서 호출해야 LAZY 로딩이 됨.
+ * 그래서 모든 전략을 똑같이 읽기 전용 트랜잭션 안에서 호출함
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class OrderQueryBenchmark {
+
+    @Param({"100", "1000"})
+    public int orders;
+
+    @Param({"2", "10"})
+    public int itemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTx;
+    private Statistics statistics;
+
+    private OrderApiController orderApi;
+    private OrderSimpleApiController orderSimpleApi;
+    private OrderQueryRepository orderQueryRepository;
+    private OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private OrderJdbcQueryRepository orderJdbcQueryRepository;
+    private ObjectMapper objectMapper;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SqlStatements {
+        public long statements;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkData.seed(context, orders, itemsPerOrder);
+
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        statistics = BenchmarkContext.statistics(context);
+
+        orderApi = context.getBean(OrderApiController.class);
+        orderSimpleApi = context.getBean(OrderSimpleApiController.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        orderSimpleQueryRepository = context.getBean(OrderSimpleQueryRepository.class);
+        orderJdbcQueryRepository = context.getBean(OrderJdbcQueryRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //== xToOne (simple-orders) ==//
+
+    @Benchmark
+    public Object simpleOrdersV2_lazy(SqlStatements sql) {
+        return measure(sql, () -> orderSimpleApi.orderV2());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV3_fetchJoin(SqlStatements sql) {
+        return measure(sql, () -> orderSimpleApi.orderV3());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV4_dto(SqlStatements sql) {
+        return measure(sql, () -> orderSimpleQueryRepository.findOrderDtos());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV4_jdbc(SqlStatements sql) {
+        return measure(sql, () -> orderJdbcQueryRepository.findOrderDtos());
+    }
+
+    //== 컬렉션 (orders) ==//
+
+    @Benchmark
+    public Object ordersV2_lazy(SqlStatements sql) {
+        return measure(sql, () -> orderApi.ordersV2());
+    }
+
+    @Benchmark
+    public Object ordersV3_collectionFetchJoin(SqlStatements sql) {
+        return measure(sql, () -> orderApi.ordersV3(0, orders));
+    }
+
+    @Benchmark
+    public Object ordersV3_1_batchSize(SqlStatements sql) {
+        return measure(sql, () -> orderApi.ordersV3_page(0, orders));
+    }
+
+    @Benchmark
+    public Object ordersV4_dtoNPlusOne(SqlStatements sql) {
+        return measure(sql, () -> orderQueryRepository.findOrderQueryDtos());
+    }
+
+    @Benchmark
+    public Object ordersV5_dtoInQuery(SqlStatements sql) {
+        return measure(sql, () -> orderQueryRepository.findAllByDto_optimization());
+    }
+
+    @Benchmark
+    public Object ordersV5_jdbc(SqlStatements sql) {
+        return measure(sql, () -> orderJdbcQueryRepository.findAllByDto_optimization());
+    }
+
+    /**
+     * v5와 같은 모양의 JSON을 db가 만든 것. 결과가 이미 직렬화된 byte[]라서
+     * 다른 전략과 공정하게 비교하려면 그쪽에도 직렬화 비용을 더해야 함 -> *_json 벤치마크
+     */
+    @Benchmark
+    public Object ordersV5_1_dbJson(SqlStatements sql) {
+        return measure(sql, () -> orderQueryRepository.findAllByDto_json());
+    }
+
+    @Benchmark
+    public Object ordersV5_dtoInQuery_json(SqlStatements sql) throws Exception {
+        return objectMapper.writeValueAsBytes(measure(sql, () -> orderQueryRepository.findAllByDto_optimization()));
+    }
+
+    @Benchmark
+    public Object ordersV6_flat_json(SqlStatements sql) throws Exception {
+        return objectMapper.writeValueAsBytes(measure(sql, () -> orderApi.ordersV6(null, null)));
+    }
+
+    @Benchmark
+    public Object ordersV6_flat(SqlStatements sql) {
+        return measure(sql, () -> orderApi.ordersV6(null, null));
+    }
+
+    private Object measure(SqlStatements sql, Supplier<Object> strategy) {
+        long before = statistics.getPrepareStatementCount();
+        Object result = readOnlyTx.execute(status -> strategy.get());
+        sql.statements += statistics.getPrepareStatementCount() - before;
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.Service.query.OrderDto;
+import jpabook.jpashop.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 주문 페이지(v3.1 방식: ToOne fetch join + orderItems batch fetch)를 읽기 전용/일반 트랜잭션에서 비교
+ * - 일반 트랜잭션: 엔티티마다 변경감지용 스냅샷을 만들고, 커밋할 때 전부 비교(flush)
+ * - 읽기 전용: 스냅샷 X, flush X
+ * 페이지당 절약량은 -prof gc 의 gc.alloc.rate.norm (B/op) 차이와 ops/s 차이로 봄
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"true", "false"})
+    public boolean readOnly;
+
+    @Param({"1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate tx;
+    private OrderRepository orderRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkData.seed(context, pageSize, 5);
+
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(readOnly);
+        orderRepository = context.getBean(OrderRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderDto> orderPage() {
+        return tx.execute(status -> orderRepository.findAllWithMemberDelivery(0, pageSize).stream()
+                .map(OrderDto::new)
+                .collect(toList()));
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.Service.OrderService;
+import jpabook.jpashop.datagen.BulkDataGenerator;
+import jpabook.jpashop.datagen.DataGeneratorProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 하나(hot item)에 여러 스레드가 동시에 주문할 때 초당 주문 수
+ * - mode별 처리량(ops/s)과 함께 성공/실패(재고 충돌) 건수를 보조 카운터로 봄
+ * - ENTITY는 @Version 충돌로 실패가 많이 나고, ATOMIC은 실패 없이 처리량이 올라가야 정상
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class StockContentionBenchmark {
+
+    @Param({"ENTITY", "ATOMIC", "OPTIMISTIC"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private long firstMemberId;
+    private int members;
+    private long hotItemId;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long placed;
+        public long failed;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("jpashop.stock.mode=" + mode);
+
+        DataGeneratorProperties props = new DataGeneratorProperties();
+        props.setMembers(100);
+        props.setItems(1);
+        props.setCategories(0);
+        props.setOrders(0);
+        context.getBean(BulkDataGenerator.class).generate(props);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("update item set stock_quantity = ?", Integer.MAX_VALUE);
+        hotItemId = jdbcTemplate.queryForObject("select max(item_id) from item", Long.class);
+        firstMemberId = jdbcTemplate.queryForObject("select min(member_id) from member where name like 'member%'", Long.class);
+        members = props.getMembers();
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void orderHotItem(Outcome outcome) {
+        long memberId = firstMemberId + ThreadLocalRandom.current().nextInt(members);
+        try {
+            orderService.order(memberId, hotItemId, 1);
+            outcome.placed++;
+        } catch (RuntimeException e) { // 버전 충돌, 재시도 초과
+            outcome.failed++;
+        }
+    }
+}
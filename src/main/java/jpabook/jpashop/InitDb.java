@@ -1,15 +1,22 @@
 package jpabook.jpashop;
 
+import jpabook.jpashop.Service.SalesService;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.Collections;
 
+/**
+ * 샘플 데이터 2건. 대용량 데이터는 datagen 프로필(BulkDataGenerator)로 넣음
+ */
 @Component
+@Profile("!datagen")
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -26,6 +33,7 @@ public class InitDb {
     @RequiredArgsConstructor
     static class InitService {
         private final EntityManager em;
+        private final SalesService salesService;
         public void dbInit1() {
             Member member = createMember("userA", "서울", "1", "1111");
             em.persist(member);
@@ -43,6 +51,8 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
+            salesService.record(Collections.singletonList(order));
         }
 
         public void dbInit2() {
@@ -62,6 +72,8 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
+            salesService.record(Collections.singletonList(order));
         }
 
         private static Delivery createDelivery(Member member) {
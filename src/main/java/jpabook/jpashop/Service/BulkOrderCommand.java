@@ -0,0 +1,31 @@
+package jpabook.jpashop.Service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 대량 주문 한 건 (회원 한 명 + 주문 상품 여러 개)
+ */
+@Getter
+public class BulkOrderCommand {
+
+    private final Long memberId;
+    private final List<Line> lines;
+
+    public BulkOrderCommand(Long memberId, List<Line> lines) {
+        this.memberId = memberId;
+        this.lines = lines;
+    }
+
+    @Getter
+    public static class Line {
+        private final Long itemId;
+        private final int count;
+
+        public Line(Long itemId, int count) {
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.Service;
+
+import lombok.Getter;
+
+/**
+ * 대량 주문 건별 결과. index는 요청 목록에서의 순서
+ */
+@Getter
+public class BulkOrderResult {
+
+    private final int index;
+    private final Long orderId;      // 실패하면 null
+    private final boolean success;
+    private final String message;   // 실패 사유
+
+    private BulkOrderResult(int index, Long orderId, boolean success, String message) {
+        this.index = index;
+        this.orderId = orderId;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static BulkOrderResult success(int index, Long orderId) {
+        return new BulkOrderResult(index, orderId, true, null);
+    }
+
+    public static BulkOrderResult fail(int index, String message) {
+        return new BulkOrderResult(index, null, false, message);
+    }
+}
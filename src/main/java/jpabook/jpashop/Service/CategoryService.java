@@ -0,0 +1,92 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+
+    /**
+     * null이면 다음 조회 때 db에서 다시 만듦
+     */
+    private volatile CategoryTree tree;
+
+    @Transactional
+    public Long saveCategory(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            categoryRepository.findOne(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        invalidateAfterCommit();
+        return category.getId();
+    }
+
+    /**
+     * 카테고리를 다른 부모 아래로 옮김 (parentId가 null이면 최상위로)
+     */
+    @Transactional
+    public void move(Long categoryId, Long newParentId) {
+        Category category = categoryRepository.findOne(categoryId);
+        Category newParent = newParentId == null ? null : categoryRepository.findOne(newParentId);
+        if (newParent != null && (newParent.getId().equals(categoryId)
+                || newParent.getPath().startsWith(category.getSubtreePrefix()))) {
+            throw new IllegalArgumentException("자기 자신이나 하위 카테고리 아래로는 옮길 수 없습니다.");
+        }
+
+        String oldPrefix = category.getSubtreePrefix();
+        category.changeParent(newParent);
+        categoryRepository.updateSubtreePath(oldPrefix, category.getSubtreePrefix());
+        invalidateAfterCommit();
+    }
+
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        return getTree().get(categoryId)
+                .map(node -> categoryRepository.findItemsInSubtree(categoryId, node.getSubtreePrefix()))
+                .orElse(Collections.emptyList());
+    }
+
+    public CategoryTree getTree() {
+        CategoryTree current = tree;
+        if (current != null) {
+            return current;
+        }
+        // 다시 만드는 도중에 커밋된 변경이 invalidate로 버려지지 않게 같은 락으로 묶음
+        synchronized (this) {
+            if (tree == null) {
+                tree = CategoryTree.of(categoryRepository.findAllForTree());
+            }
+            return tree;
+        }
+    }
+
+    /**
+     * 카테고리를 jdbc 등으로 직접 넣었을 때 스냅샷을 버림
+     */
+    public synchronized void invalidate() {
+        tree = null;
+    }
+
+    private void invalidateAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+}
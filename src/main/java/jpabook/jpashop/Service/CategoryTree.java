@@ -0,0 +1,115 @@
+package jpabook.jpashop.Service;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 카테고리 트리 스냅샷 (메뉴, 브레드크럼 표시용)
+ *
+ * 만든 뒤에는 바뀌지 않아서 여러 요청이 락 없이 같이 읽어도 됨.
+ * 카테고리가 바뀌면 통째로 새로 만들어서 참조만 바꿈 (CategoryService)
+ */
+public class CategoryTree {
+
+    private final Map<Long, Node> nodes;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Node> roots) {
+        this.nodes = nodes;
+        this.roots = roots;
+    }
+
+    /**
+     * @param rows [id, name, parentId, path] (CategoryRepository.findAllForTree)
+     */
+    public static CategoryTree of(List<Object[]> rows) {
+        Map<Long, List<Long>> childIds = new HashMap<>();
+        for (Object[] row : rows) {
+            Long parentId = (Long) row[2];
+            if (parentId != null) {
+                childIds.computeIfAbsent(parentId, k -> new ArrayList<>()).add((Long) row[0]);
+            }
+        }
+
+        Map<Long, Node> nodes = new HashMap<>(rows.size() * 2);
+        List<Node> roots = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            List<Long> children = childIds.getOrDefault(id, Collections.emptyList());
+            Node node = new Node(id, (String) row[1], (Long) row[2], (String) row[3], children);
+            nodes.put(id, node);
+            if (node.getParentId() == null) {
+                roots.add(node);
+            }
+        }
+        return new CategoryTree(Collections.unmodifiableMap(nodes), Collections.unmodifiableList(roots));
+    }
+
+    public static CategoryTree empty() {
+        return new CategoryTree(Collections.emptyMap(), Collections.emptyList());
+    }
+
+    public Optional<Node> get(Long id) {
+        return Optional.ofNullable(nodes.get(id));
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public List<Node> getChildren(Long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Node> children = new ArrayList<>(node.getChildIds().size());
+        for (Long childId : node.getChildIds()) {
+            children.add(nodes.get(childId));
+        }
+        return children;
+    }
+
+    /**
+     * 최상위부터 자기 자신까지 (path에 조상 id가 순서대로 들어 있음)
+     */
+    public List<Node> getBreadcrumb(Long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Node> breadcrumb = new ArrayList<>();
+        for (String ancestorId : node.getPath().split("/")) {
+            if (!ancestorId.isEmpty()) {
+                breadcrumb.add(nodes.get(Long.valueOf(ancestorId)));
+            }
+        }
+        breadcrumb.add(node);
+        return breadcrumb;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Getter
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final String path;
+        private final List<Long> childIds;
+
+        private Node(Long id, String name, Long parentId, String path, List<Long> childIds) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.path = path;
+            this.childIds = Collections.unmodifiableList(childIds);
+        }
+
+        public String getSubtreePrefix() {
+            return path + id + "/";
+        }
+    }
+}
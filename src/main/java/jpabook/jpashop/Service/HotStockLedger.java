@@ -0,0 +1,175 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.StockLedgerEntry;
+import jpabook.jpashop.exception.NotEnoughtStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 플래시 세일용 hot item 재고 장부 (jpashop.stock.hot-items에 지정한 상품만)
+ *
+ * - 남은 재고는 메모리(AtomicInteger, CAS)에서 차감/원복 -> item row 락 없이 메모리 속도로 처리
+ * - 변경량은 주문 트랜잭션 안에서 stock_ledger_entry에 insert (append라 서로 경합 없음)
+ * - 주기적으로 저널을 모아서 item.stock_quantity에 한꺼번에 반영하고 저널을 지움 (write-behind)
+ * - 재시작하면 item.stock_quantity + 아직 반영 안 된 저널 합계로 메모리 값을 다시 맞춤
+ * - 장부 밖에서 재고를 바꾸면(adjustAfterCommit) 메모리 값에 변화량만 더함
+ *
+ * 메모리 값은 인스턴스 하나 기준. 여러 대로 띄우면 hot item은 한 인스턴스로 보내야 함
+ */
+@Slf4j
+@Component
+public class HotStockLedger {
+
+    private static final int FLUSH_CHUNK = 1000;
+
+    private final StockLedgerRepository stockLedgerRepository;
+    private final ItemRepository itemRepository;
+    private final Set<Long> hotItemIds;
+    private final TransactionTemplate tx;
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    public HotStockLedger(StockLedgerRepository stockLedgerRepository,
+                          ItemRepository itemRepository,
+                          @Value("${jpashop.stock.hot-items:}") List<Long> hotItemIds,
+                          PlatformTransactionManager transactionManager) {
+        this.stockLedgerRepository = stockLedgerRepository;
+        this.itemRepository = itemRepository;
+        this.hotItemIds = Collections.unmodifiableSet(new HashSet<>(hotItemIds));
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isHot(Long itemId) {
+        return hotItemIds.contains(itemId);
+    }
+
+    /**
+     * 재고 차감. 주문 트랜잭션 안에서 호출해야 됨
+     * 트랜잭션이 롤백되면 메모리 값도 되돌림
+     */
+    public void reserve(Long itemId, int count) {
+        AtomicInteger stock = stockOf(itemId);
+        int current;
+        do {
+            current = stock.get();
+            if (current < count) {
+                throw new NotEnoughtStockException("need more stock");
+            }
+        } while (!stock.compareAndSet(current, current - count));
+
+        stockLedgerRepository.save(new StockLedgerEntry(itemId, -count));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stock.addAndGet(count);
+                }
+            }
+        });
+    }
+
+    /**
+     * 재고 원복. 커밋된 다음에만 메모리에 더함 (롤백됐는데 먼저 더해두면 초과 판매가 날 수 있음)
+     */
+    public void release(Long itemId, int count) {
+        AtomicInteger stock = stockOf(itemId);
+        stockLedgerRepository.save(new StockLedgerEntry(itemId, count));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stock.addAndGet(count);
+            }
+        });
+    }
+
+    /**
+     * 장부를 거치지 않고 item 재고를 직접 바꾼 경우(상품 수정, 대량 주문) 커밋 후 바뀐 양만큼 메모리에도 더함
+     * db 값으로 덮어쓰면 다른 스레드가 차감해두고 아직 커밋 안 한 몫이 사라져서 초과 판매가 날 수 있음
+     *
+     * @param delta 재고 변화량 (차감이면 음수)
+     */
+    public void adjustAfterCommit(Long itemId, int delta) {
+        if (!isHot(itemId) || delta == 0) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // 아직 안 읽은 상품이면 처음 읽을 때 db 값에 이미 들어가 있음
+                AtomicInteger stock = available.get(itemId);
+                if (stock != null) {
+                    stock.addAndGet(delta);
+                }
+            }
+        });
+    }
+
+    /**
+     * 메모리 기준 남은 재고 (처음이면 db에서 읽음)
+     */
+    public int availableStock(Long itemId) {
+        return stockOf(itemId).get();
+    }
+
+    /**
+     * 시작할 때 db(item 재고 + 반영 안 된 저널)로 메모리 값을 맞춤
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        available.clear();
+        for (Long itemId : hotItemIds) {
+            stockOf(itemId);
+        }
+        if (!hotItemIds.isEmpty()) {
+            log.info("hot stock ledger loaded: {}", available);
+        }
+    }
+
+    /**
+     * 저널을 모아서 item 재고에 반영 (write-behind)
+     * 읽어온 저널 id만 지우니까 그 사이에 커밋된 저널은 다음 번에 반영됨
+     * 반영할 저널이 없으면 트랜잭션을 열지 않고 넘어감
+     * (hot item 설정이 아니라 저널을 봐야 설정에서 빠졌거나 다른 인스턴스가 남긴 저널도 반영됨)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.flush-interval-ms:1000}")
+    public void flush() {
+        if (!stockLedgerRepository.existsPending()) {
+            return;
+        }
+        tx.executeWithoutResult(status -> flushPending());
+    }
+
+    private void flushPending() {
+        List<StockLedgerEntry> entries = stockLedgerRepository.findPending(FLUSH_CHUNK);
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> deltas = new HashMap<>();
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (StockLedgerEntry entry : entries) {
+            deltas.merge(entry.getItemId(), entry.getDelta(), Integer::sum);
+            ids.add(entry.getId());
+        }
+        // 순변화량만 반영 (차감이면 음수)
+        deltas.forEach((itemId, delta) -> itemRepository.increaseStock(itemId, delta));
+        stockLedgerRepository.deleteAllByIds(ids);
+    }
+
+    private AtomicInteger stockOf(Long itemId) {
+        return available.computeIfAbsent(itemId,
+                id -> new AtomicInteger(stockLedgerRepository.findAvailableStock(id)));
+    }
+}
@@ -15,10 +15,13 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final HotStockLedger hotStockLedger;
+    private final ResourceVersionService resourceVersionService;
 
     @Transactional // overriding
     public void saveItem(Item item) {
         itemRepository.save(item);
+        resourceVersionService.bump(VersionedResource.ITEM);
     }
 
 //    @Transactional
@@ -41,9 +44,12 @@ public class ItemService {
     public void updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item findItem = itemRepository.findOne(itemId);
 
+        // hot item이면 바뀐 양만큼 메모리 재고도 맞춤
+        hotStockLedger.adjustAfterCommit(itemId, stockQuantity - findItem.getStockQuantity());
         findItem.setName(name);
         findItem.setPrice(price);
         findItem.setStockQuantity(stockQuantity);
+        resourceVersionService.bump(VersionedResource.ITEM); // 상품 이름이 주문 목록에 나감
     }
 
     public List<Item> findItems() {
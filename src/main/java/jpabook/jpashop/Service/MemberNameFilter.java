@@ -0,0 +1,117 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 회원 이름 Bloom filter
+ *
+ * mightContain이 false면 그 이름은 확실히 없음 -> 중복 조회 쿼리를 안 날려도 됨
+ * true면 있을 수도 있음(오탐) -> 그때만 db 조회
+ *
+ * 비트 배열은 AtomicLongArray에 CAS로 켜기만 해서 락이 없음. 가입이 몰려도 코어 수만큼 같이 처리됨
+ * 지우는 건 안 됨(이름이 바뀌어도 예전 이름 비트는 남음). 남은 비트는 쿼리 한 번이 더 나갈 뿐 결과는 틀리지 않음
+ * 최종 중복 판단은 member.name unique 제약이 함
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final MemberRepository memberRepository;
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final long expectedNames;
+    private final LongAdder added = new LongAdder();
+
+    public MemberNameFilter(MemberRepository memberRepository,
+                            @Value("${jpashop.member.name-filter.expected-names:1000000}") long expectedNames,
+                            @Value("${jpashop.member.name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.memberRepository = memberRepository;
+        this.expectedNames = expectedNames;
+        // 최적 비트 수 m = -n ln p / (ln 2)^2, 해시 개수 k = m/n ln 2
+        long m = (long) Math.ceil(-expectedNames * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedNames * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitSize / 64));
+    }
+
+    public boolean mightContain(String name) {
+        long hash = hash64(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitSize);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String name) {
+        long hash = hash64(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitSize);
+            setBit((int) (bit >>> 6), 1L << bit);
+        }
+        added.increment();
+    }
+
+    /**
+     * 시작할 때 기존 회원 이름을 모두 넣음
+     * 적재가 끝나기 전에 들어온 가입은 filter가 "없음"이라고 해도 unique 제약에서 걸러짐
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try (Stream<String> names = memberRepository.streamAllNames()) {
+            names.forEach(this::put);
+        }
+        log.info("member name filter loaded: names={}, bits={}, hashes={} ({} ms)",
+                added.sum(), bitSize, hashCount, System.currentTimeMillis() - start);
+        if (added.sum() > expectedNames) {
+            log.warn("member name filter is over capacity ({} > {}), raise jpashop.member.name-filter.expected-names",
+                    added.sum(), expectedNames);
+        }
+    }
+
+    private void setBit(int word, long mask) {
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * FNV-1a 64bit + murmur3 fmix (상위/하위 32bit를 두 개의 해시로 나눠 씀)
+     */
+    private static long hash64(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
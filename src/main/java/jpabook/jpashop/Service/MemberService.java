@@ -1,14 +1,19 @@
 package jpabook.jpashop.Service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.FieldProjection;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 /**
@@ -32,6 +37,9 @@ public class MemberService {
      */
 //    @Autowired
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ResourceVersionService resourceVersionService;
 
     /**
      * setter injection
@@ -67,6 +75,8 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member); // 중복 회원 검증
         memberRepository.save(member);
+        flushName(member.getName());
+        resourceVersionService.bump(VersionedResource.MEMBER);
         return member.getId();
     }
 
@@ -74,25 +84,70 @@ public class MemberService {
         /**
          * 이 로직은 멤버 A가 동시에 DB insert를 하게 되면 동시에 이 로직을 호출하게 됨
          * 멀티쓰레드 상황을 고려해서 DB에 member name에 unique 제약 조건을 걸어주는 게 안전
+         * -> uk_member_name으로 걸어둠. 여기서는 filter가 확실히 없다고 하면 조회를 건너뜀
          */
+        if (!memberNameFilter.mightContain(member.getName())) {
+            return;
+        }
         List<Member> findMembers = memberRepository.findByName(member.getName());
         if (!findMembers.isEmpty()) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /**
+     * 바로 flush해서 동시에 같은 이름으로 들어온 가입을 unique 제약 위반으로 받고 기존 예외로 바꿈
+     */
+    private void flushName(String name) {
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateName(e)) {
+                throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+            throw e;
+        }
+        memberNameFilter.put(name); // 롤백돼도 오탐이 하나 늘 뿐이라 커밋 전에 넣어도 됨
+    }
+
+    private static boolean isDuplicateName(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null && constraintName.toLowerCase().contains("uk_member_name");
+    }
+
     // 회원 전체 조회
     public List<Member> findMembers() {
         return memberRepository.findAll();
     }
 
+    // 회원 전체 조회 (?fields= 로 고른 필드만)
+    public FieldProjection.Plan compileFields(String fields) {
+        return memberRepository.compileFields(fields);
+    }
+
+    public List<Map<String, Object>> findMembers(FieldProjection.Plan plan) {
+        return memberRepository.findAll(plan);
+    }
+
     public Member findOne(Long memberId) {
         return memberRepository.findOne(memberId);
     }
 
     @Transactional
     public void update(Long id, String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("회원 이름은 필수입니다.");
+        }
         Member member = memberRepository.findOne(id);
+        if (name.equals(member.getName())) {
+            return;
+        }
         member.setName(name);
+        flushName(name);
+        orderSummaryRepository.updateMemberName(id, name); // 주문 요약에 펼쳐둔 이름도 같이
+        resourceVersionService.bump(VersionedResource.MEMBER);
     }
 }
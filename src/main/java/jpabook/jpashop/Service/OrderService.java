@@ -4,16 +4,27 @@ import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughtStockException;
+import jpabook.jpashop.exception.StockConflictException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional(readOnly = true)
@@ -23,20 +34,25 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final SalesService salesService;
+    private final ResourceVersionService resourceVersionService;
 
     // 주문
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
+        // 재고 차감 (jpashop.stock.mode에 따라 변경감지 / update 한 방 / 버전 비교)
+        ReservedItem reserved = stockService.reserve(itemId, count);
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         // 주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(reserved.getItem(), reserved.getPrice(), count);
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -55,14 +71,102 @@ public class OrderService {
          * 만약 delivery를 다른 애들이 참조해서 사용한다면 cascade를 함부로 사용하면 안 됨
          */
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order)); // 목록 조회용 읽기 모델도 같은 트랜잭션에서
+        salesService.record(Collections.singletonList(order)); // 매출 집계
+        resourceVersionService.bump(VersionedResource.ORDER); // 목록 API ETag
         return order.getId();
     }
 
+    /**
+     * 대량 주문
+     * 회원, 상품을 주문마다 조회하지 않고 in 쿼리 한 번씩으로 미리 가져옴.
+     * insert는 커밋할 때 한꺼번에 나가는데 pooled 시퀀스 + hibernate.jdbc.batch_size/order_inserts 설정으로
+     * 주문/주문상품/배송이 테이블별로 묶여서 batch로 나감.
+     *
+     * 재고는 단건 주문과 같은 경로(StockService - 모드별 차감, hot item은 장부)로 차감.
+     * 재고 부족/충돌, 없는 회원/상품 같은 건별 오류는 그 주문만 실패 처리하고 나머지는 그대로 저장
+     */
+    @Transactional
+    public List<BulkOrderResult> orderBulk(List<BulkOrderCommand> commands) {
+        if (commands.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Member> members = memberRepository.findAllByIds(commands.stream()
+                        .map(BulkOrderCommand::getMemberId)
+                        .collect(toSet()))
+                .stream().collect(toMap(Member::getId, m -> m));
+        Map<Long, Item> items = itemRepository.findAllByIds(commands.stream()
+                        .filter(c -> c.getLines() != null)
+                        .flatMap(c -> c.getLines().stream())
+                        .map(BulkOrderCommand.Line::getItemId)
+                        .collect(toSet()))
+                .stream().collect(toMap(Item::getId, i -> i));
+
+        List<BulkOrderResult> results = new ArrayList<>(commands.size());
+        List<Order> placed = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            try {
+                Order order = createOrder(commands.get(i), members, items);
+                orderRepository.save(order);
+                orderSummaryRepository.save(OrderSummary.of(order));
+                placed.add(order);
+                results.add(BulkOrderResult.success(i, order.getId()));
+            } catch (IllegalArgumentException | NotEnoughtStockException | StockConflictException e) {
+                results.add(BulkOrderResult.fail(i, e.getMessage()));
+            }
+        }
+        salesService.record(placed); // 같은 날/상품끼리 합쳐서 한 번에
+        if (!placed.isEmpty()) {
+            resourceVersionService.bump(VersionedResource.ORDER);
+        }
+        return results;
+    }
+
+    private Order createOrder(BulkOrderCommand command, Map<Long, Member> members, Map<Long, Item> items) {
+        Member member = members.get(command.getMemberId());
+        if (member == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + command.getMemberId());
+        }
+        if (command.getLines() == null || command.getLines().isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+
+        // 상품을 먼저 다 확인하고 나서 한 번에 차감 (중간에 실패하면 앞 상품 재고도 되돌림)
+        Map<Long, Integer> counts = new HashMap<>();
+        for (BulkOrderCommand.Line line : command.getLines()) {
+            if (!items.containsKey(line.getItemId())) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+            }
+            counts.merge(line.getItemId(), line.getCount(), Integer::sum);
+        }
+        stockService.reserveAll(counts);
+
+        OrderItem[] orderItems = command.getLines().stream()
+                .map(line -> {
+                    Item item = items.get(line.getItemId());
+                    return OrderItem.createReservedOrderItem(item, item.getPrice(), line.getCount());
+                })
+                .toArray(OrderItem[]::new);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        return Order.createOrder(member, delivery, orderItems);
+    }
+
     // 취소
     @Transactional
     public void cancelOrder(Long orderId) {
         Order order = orderRepository.findOne(orderId);
-        order.cancel();
+        stockService.cancel(order);
+        salesService.recordCancel(order);
+        resourceVersionService.bump(VersionedResource.ORDER);
+
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        if (summary == null) { // rebuild 전에 jdbc로 들어온 주문
+            orderSummaryRepository.save(OrderSummary.of(order));
+        } else {
+            summary.cancel();
+        }
     }
 
     // 검색
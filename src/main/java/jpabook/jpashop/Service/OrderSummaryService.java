@@ -0,0 +1,114 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * order_summary 읽기 모델 전체 재생성(backfill)과 정합성 검사
+ * 주문 id 구간(CHUNK)마다 트랜잭션을 끊어서 주문이 많아도 트랜잭션/언두가 한없이 커지지 않음
+ */
+@Slf4j
+@Service
+public class OrderSummaryService {
+
+    private static final long CHUNK = 10_000;
+    private static final int MAX_SAMPLES = 100;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+
+    public OrderSummaryService(OrderSummaryRepository orderSummaryRepository,
+                               ResourceVersionService resourceVersionService,
+                               PlatformTransactionManager transactionManager) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.resourceVersionService = resourceVersionService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * 전체 재생성. 반환값은 채운 row 수
+     */
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        long rebuilt = 0;
+        long[] range = orderIdRange();
+        if (range != null) {
+            for (long from = range[0]; from <= range[1]; from += CHUNK) {
+                long fromId = from;
+                long toId = Math.min(from + CHUNK - 1, range[1]);
+                rebuilt += tx.execute(status -> orderSummaryRepository.rebuildRange(fromId, toId));
+            }
+        }
+        tx.execute(status -> orderSummaryRepository.deleteOrphans()); // 구간 밖에 남은 요약
+        resourceVersionService.bump(VersionedResource.ORDER);
+        log.info("order_summary rebuilt: rows={} ({} ms)", rebuilt, System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+
+    /**
+     * 원본(orders + member + delivery + order_item)과 비교
+     */
+    public ConsistencyReport check() {
+        List<Long> mismatched = new ArrayList<>();
+        long mismatchedCount = 0;
+        long[] range = orderIdRange();
+        if (range != null) {
+            for (long from = range[0]; from <= range[1]; from += CHUNK) {
+                long fromId = from;
+                long toId = Math.min(from + CHUNK - 1, range[1]);
+                List<Number> ids = readOnlyTx.execute(status -> orderSummaryRepository.findMismatchedOrderIds(fromId, toId));
+                mismatchedCount += ids.size();
+                for (Number id : ids) {
+                    if (mismatched.size() < MAX_SAMPLES) {
+                        mismatched.add(id.longValue());
+                    }
+                }
+            }
+        }
+        // 고아 요약은 구간으로 안 나뉘니까 개수만 세고 id는 샘플만 읽음
+        long orphanCount = readOnlyTx.execute(status -> orderSummaryRepository.countOrphans());
+        List<Long> orphanSamples = new ArrayList<>();
+        if (orphanCount > 0) {
+            readOnlyTx.execute(status -> orderSummaryRepository.findOrphanOrderIds(MAX_SAMPLES))
+                    .forEach(id -> orphanSamples.add(id.longValue()));
+        }
+        return new ConsistencyReport(mismatchedCount, mismatched, orphanCount, orphanSamples);
+    }
+
+    private long[] orderIdRange() {
+        Object[] range = readOnlyTx.execute(status -> orderSummaryRepository.findOrderIdRange());
+        if (range == null || range[0] == null) {
+            return null;
+        }
+        return new long[]{((Number) range[0]).longValue(), ((Number) range[1]).longValue()};
+    }
+
+    @Getter
+    public static class ConsistencyReport {
+        private final boolean consistent;
+        private final long mismatchedCount;      // 요약이 없거나 값이 다른 주문 수
+        private final List<Long> mismatchedSamples;
+        private final long orphanCount;          // 원본 주문이 없는 요약 수
+        private final List<Long> orphanSamples;
+
+        public ConsistencyReport(long mismatchedCount, List<Long> mismatchedSamples,
+                                 long orphanCount, List<Long> orphanSamples) {
+            this.consistent = mismatchedCount == 0 && orphanCount == 0;
+            this.mismatchedCount = mismatchedCount;
+            this.mismatchedSamples = mismatchedSamples;
+            this.orphanCount = orphanCount;
+            this.orphanSamples = orphanSamples;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * orders.total_price, orders.line_count 채우기
+ *
+ * 컬럼이 생기기 전에 들어간 주문은 0으로 남아 있으니 order_item에서 다시 계산함.
+ * ddl-auto: none인 db라면 먼저 컬럼을 추가해야 됨
+ *   alter table orders add column total_price integer default 0 not null;
+ *   alter table orders add column line_count integer default 0 not null;
+ * 그다음 --jpashop.migration.order-totals=true 로 한 번 띄우면 시작할 때 채움
+ *
+ * 주문 id 구간(CHUNK)마다 트랜잭션을 끊어서 락을 오래 잡지 않음. 여러 번 돌려도 결과는 같음
+ */
+@Slf4j
+@Component
+public class OrderTotalsMigration {
+
+    private static final long CHUNK = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate tx;
+    private final boolean runOnStartup;
+
+    public OrderTotalsMigration(OrderRepository orderRepository,
+                                ResourceVersionService resourceVersionService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${jpashop.migration.order-totals:false}") boolean runOnStartup) {
+        this.orderRepository = orderRepository;
+        this.resourceVersionService = resourceVersionService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.runOnStartup = runOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (runOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * 반환값은 갱신한 주문 수
+     */
+    public long backfill() {
+        long start = System.currentTimeMillis();
+        Object[] range = tx.execute(status -> orderRepository.findOrderIdRange());
+        if (range == null || range[0] == null) {
+            return 0;
+        }
+        long min = ((Number) range[0]).longValue();
+        long max = ((Number) range[1]).longValue();
+
+        long updated = 0;
+        for (long from = min; from <= max; from += CHUNK) {
+            long fromId = from;
+            long toId = Math.min(from + CHUNK - 1, max);
+            updated += tx.execute(status -> orderRepository.backfillTotals(fromId, toId));
+        }
+        resourceVersionService.bump(VersionedResource.ORDER); // 주문 목록 응답의 총액이 바뀜
+        log.info("order totals backfilled: rows={} ({} ms)", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+}
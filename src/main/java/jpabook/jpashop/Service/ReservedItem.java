@@ -0,0 +1,16 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 재고를 차감한 상품과 주문 가격
+ * ATOMIC/OPTIMISTIC/hot item은 item이 프록시(getReference)라 가격은 따로 조회해서 담아둠 (엔티티 전체를 안 읽으려고)
+ */
+@Getter
+@AllArgsConstructor
+public class ReservedItem {
+    private final Item item;
+    private final int price;
+}
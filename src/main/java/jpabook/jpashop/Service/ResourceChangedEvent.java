@@ -0,0 +1,15 @@
+package jpabook.jpashop.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * 이 인스턴스에서 자원 버전을 올린 뒤(커밋 후)에 발행. 캐시 무효화용
+ */
+@Getter
+@AllArgsConstructor
+public class ResourceChangedEvent {
+    private final Set<VersionedResource> resources;
+}
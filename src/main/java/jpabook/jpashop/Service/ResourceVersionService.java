@@ -0,0 +1,193 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.ResourceVersion;
+import jpabook.jpashop.repository.ResourceVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 목록 API ETag용 자원 버전
+ *
+ * - 쓰기 서비스가 bump를 부르면 커밋된 다음에 별도 트랜잭션으로 db의 버전을 올림.
+ *   커밋 전에 올리면 아직 안 보이는 데이터에 새 ETag가 붙어서, 클라이언트가 옛날 응답을 새 버전으로 들고 있게 될 수 있음
+ *   같은 자원 row를 주문 트랜잭션 안에서 잡고 있지 않으니 주문끼리 줄을 서지도 않음
+ * - 읽을 때는 메모리 스냅샷을 씀. ttl(기본 1초)이 지나면 한 번에 다시 읽음
+ *   -> ttl 안에 온 조건부 요청은 db를 안 거치고 304, 다른 인스턴스에서 바뀐 건 최대 ttl만큼 늦게 보임
+ *   이 인스턴스에서 올린 건 커밋 직후 스냅샷을 버리니까 바로 보임
+ * - 올린 다음 ResourceChangedEvent를 발행 (JsonResponseCache가 받아서 해당 자원 응답을 지움)
+ * - 올리기가 끝내 실패하면 그 자원의 ETag를 끔(etag가 null). 옛날 ETag로 304가 나가면 바뀐 데이터를 못 보니까
+ *   스냅샷을 다시 읽을 때마다 다시 올려보고, 성공하면 다시 켬
+ */
+@Slf4j
+@Service
+public class ResourceVersionService {
+
+    private static final int BUMP_ATTEMPTS = 3;
+
+    private final ResourceVersionRepository resourceVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTx;
+    private final TransactionTemplate readOnlyTx;
+    private final long ttlMillis;
+
+    private volatile Snapshot snapshot;
+    /** 버전을 못 올린 자원. 다시 올릴 때까지 ETag를 안 붙임 */
+    private final Set<VersionedResource> unversioned = ConcurrentHashMap.newKeySet();
+
+    public ResourceVersionService(ResourceVersionRepository resourceVersionRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${jpashop.etag.version-ttl-ms:1000}") long ttlMillis) {
+        this.resourceVersionRepository = resourceVersionRepository;
+        this.eventPublisher = eventPublisher;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * db를 새로 만들면 버전이 처음부터 다시 시작하니까 시작 시각으로 초기값을 줌
+     * (재시작 전에 받은 ETag와 우연히 같은 값이 나오지 않게)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        long initial = System.currentTimeMillis();
+        newTx.executeWithoutResult(status -> {
+            for (VersionedResource resource : VersionedResource.values()) {
+                resourceVersionRepository.createIfAbsent(resource.name(), initial);
+            }
+        });
+        snapshot = null;
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서 호출. 트랜잭션 밖이면 바로 올림
+     */
+    public void bump(VersionedResource... resources) {
+        Set<VersionedResource> targets = EnumSet.noneOf(VersionedResource.class);
+        Collections.addAll(targets, resources);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpNow(targets);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bumpNow(targets);
+            }
+        });
+    }
+
+    private void bumpNow(Set<VersionedResource> resources) {
+        try {
+            bumpWithRetry(resources);
+            unversioned.removeAll(resources);
+        } catch (RuntimeException e) {
+            // 데이터는 이미 커밋됨. 그대로 두면 옛날 ETag로 304가 나가니까 다시 올릴 때까지 ETag를 끔
+            unversioned.addAll(resources);
+            log.error("resource version bump failed, etag disabled until it succeeds: {}", resources, e);
+        } finally {
+            snapshot = null;
+            eventPublisher.publishEvent(new ResourceChangedEvent(resources));
+        }
+    }
+
+    private void bumpWithRetry(Set<VersionedResource> resources) {
+        long initial = System.currentTimeMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                newTx.executeWithoutResult(status -> resources.forEach(r -> resourceVersionRepository.bump(r.name(), initial)));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= BUMP_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("resource version bump failed (attempt {}/{}): {}", attempt, BUMP_ATTEMPTS, resources, e);
+            }
+        }
+    }
+
+    private void retryFailedBumps() {
+        if (unversioned.isEmpty()) {
+            return;
+        }
+        Set<VersionedResource> failed = EnumSet.noneOf(VersionedResource.class);
+        failed.addAll(unversioned); // copyOf는 그사이에 비면 예외
+        try {
+            bumpWithRetry(failed);
+            unversioned.removeAll(failed);
+            log.info("resource version bump recovered: {}", failed);
+        } catch (RuntimeException e) {
+            log.warn("resource version bump still failing: {}", failed, e);
+        }
+    }
+
+    /**
+     * 자원 버전들을 이어 붙인 ETag. name으로 API(응답 모양)를 구분함
+     * 버전을 못 올린 자원이 들어가면 null -> checkNotModified(null)은 항상 false라 ETag 없이 200
+     */
+    public String etag(String name, VersionedResource... resources) {
+        Map<VersionedResource, Long> versions = versions();
+        for (VersionedResource resource : resources) {
+            if (unversioned.contains(resource)) {
+                return null;
+            }
+        }
+        StringBuilder sb = new StringBuilder("\"").append(name);
+        for (VersionedResource resource : resources) {
+            sb.append('-').append(versions.getOrDefault(resource, 0L));
+        }
+        return sb.append('"').toString();
+    }
+
+    public Map<VersionedResource, Long> versions() {
+        Snapshot current = snapshot;
+        if (current == null || current.isExpired(ttlMillis)) {
+            retryFailedBumps();
+            current = new Snapshot(load());
+            snapshot = current;
+        }
+        return current.versions;
+    }
+
+    private Map<VersionedResource, Long> load() {
+        Map<VersionedResource, Long> versions = new EnumMap<>(VersionedResource.class);
+        readOnlyTx.executeWithoutResult(status -> {
+            for (ResourceVersion row : resourceVersionRepository.findAll()) {
+                versions.put(VersionedResource.valueOf(row.getName()), row.getVersion());
+            }
+        });
+        return Collections.unmodifiableMap(versions);
+    }
+
+    private static class Snapshot {
+        private final Map<VersionedResource, Long> versions;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(Map<VersionedResource, Long> versions) {
+            this.versions = versions;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+    }
+}
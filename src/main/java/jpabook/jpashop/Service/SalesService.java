@@ -0,0 +1,267 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.sales.DailySalesDto;
+import jpabook.jpashop.repository.sales.ItemSalesDto;
+import jpabook.jpashop.repository.sales.SalesRollupRepository;
+import jpabook.jpashop.repository.sales.TypeSalesDto;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.DiscriminatorValue;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 매출 집계 (상품별 / 타입별 / 일별)
+ *
+ * - 주문/취소 트랜잭션 안에서 증감만 계산해두고, 커밋된 다음 별도 트랜잭션으로 집계 테이블에 반영 (record, recordCancel)
+ *   같은 날/상품 row를 주문 트랜잭션이 잡고 있지 않으니 인기 상품 주문끼리 집계 row에서 줄을 서지 않음.
+ *   같은 row를 처음 만드는 merge가 동시에 나가면 한쪽이 중복 키로 실패하는데, 다시 하면 update로 들어가니까 재시도함.
+ *   끝내 실패하면 집계가 원본과 어긋나니 rebuild로 맞춰야 됨 (에러 로그)
+ * - 조회 기간이 하루 단위로 떨어지면 집계 테이블에서, 아니면 원본 주문을 group by
+ * - jdbc로 적재한 데이터(datagen)는 rebuild로 다시 채움
+ */
+@Slf4j
+@Service
+public class SalesService {
+
+    private static final long CHUNK = 10_000;
+    private static final int ADD_ATTEMPTS = 3;
+    /** 여러 트랜잭션이 같은 row들을 같은 순서로 잠그게 정렬 (서로 엇갈려 잡으면 교착) */
+    private static final Comparator<DeltaKey> DELTA_ORDER = Comparator.<DeltaKey, LocalDate>comparing(k -> k.salesDate)
+            .thenComparing(k -> k.itemId)
+            .thenComparing(k -> k.status);
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate newTx;
+    private final TransactionTemplate readOnlyTx;
+
+    public SalesService(SalesRollupRepository salesRollupRepository,
+                        OrderRepository orderRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.orderRepository = orderRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    //== 증분 반영 (주문 트랜잭션 안에서 호출) ==//
+
+    /**
+     * 새 주문들을 ORDER 집계에 더함 (커밋 후)
+     * 같은 날 같은 상품은 미리 합쳐서 row 하나당 merge 한 번만 나가게 함
+     */
+    public void record(Collection<Order> orders) {
+        Map<Long, String> proxyDtypes = findProxyDtypes(orders);
+        Map<DeltaKey, long[]> deltas = new TreeMap<>(DELTA_ORDER);
+        collect(orders, proxyDtypes, OrderStatus.ORDER, 1, deltas);
+        addAfterCommit(deltas);
+    }
+
+    /**
+     * 취소된 주문을 원래 주문일의 ORDER에서 빼고 CANCEL에 더함 (커밋 후)
+     */
+    public void recordCancel(Order order) {
+        List<Order> orders = Collections.singletonList(order);
+        Map<Long, String> proxyDtypes = findProxyDtypes(orders);
+        Map<DeltaKey, long[]> deltas = new TreeMap<>(DELTA_ORDER);
+        collect(orders, proxyDtypes, OrderStatus.ORDER, -1, deltas);
+        collect(orders, proxyDtypes, OrderStatus.CANCEL, 1, deltas);
+        addAfterCommit(deltas);
+    }
+
+    /**
+     * 주문 엔티티가 살아 있는 주문 트랜잭션 안에서 증감을 계산해둠
+     */
+    private static void collect(Collection<Order> orders, Map<Long, String> proxyDtypes,
+                                OrderStatus status, int sign, Map<DeltaKey, long[]> deltas) {
+        for (Order order : orders) {
+            LocalDate salesDate = order.getOrderDate().toLocalDate();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                Item item = orderItem.getItem();
+                String dtype = Hibernate.isInitialized(item) ? dtypeOf(item) : proxyDtypes.get(item.getId());
+                long[] delta = deltas.computeIfAbsent(new DeltaKey(salesDate, item.getId(), dtype, status), k -> new long[2]);
+                delta[0] += (long) sign * orderItem.getTotalPrice();
+                delta[1] += (long) sign * orderItem.getCount();
+            }
+        }
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋된 다음에 반영 (롤백되면 안 함). 트랜잭션 밖이면 바로 반영
+     */
+    private void addAfterCommit(Map<DeltaKey, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addNow(deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addNow(deltas);
+            }
+        });
+    }
+
+    private void addNow(Map<DeltaKey, long[]> deltas) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                newTx.executeWithoutResult(status -> deltas.forEach((key, delta) ->
+                        salesRollupRepository.add(key.salesDate, key.itemId, key.dtype, key.status, delta[0], delta[1])));
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // 같은 row를 처음 만드는 merge끼리 부딪힘 -> 다시 하면 이미 생긴 row에 더해짐
+                if (attempt >= ADD_ATTEMPTS) {
+                    log.error("sales rollup update failed, rebuild needed: {}", deltas.keySet(), e);
+                    return;
+                }
+                log.warn("sales rollup update conflicted (attempt {}/{}): {}", attempt, ADD_ATTEMPTS, deltas.keySet(), e);
+            } catch (RuntimeException e) {
+                // 주문은 이미 커밋됨. 호출한 쪽으로 던지면 성공한 주문이 실패로 보이니까 로그만 남김
+                log.error("sales rollup update failed, rebuild needed: {}", deltas.keySet(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 재고 차감을 update로 한 주문은 상품이 프록시(getReference)라 dtype을 보려고 초기화하면 엔티티를 통째로 읽음
+     * 그런 상품들만 모아서 dtype을 한 번에 조회
+     */
+    private Map<Long, String> findProxyDtypes(Collection<Order> orders) {
+        Set<Long> itemIds = new HashSet<>();
+        for (Order order : orders) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                if (!Hibernate.isInitialized(orderItem.getItem())) {
+                    itemIds.add(orderItem.getItem().getId());
+                }
+            }
+        }
+        return itemIds.isEmpty() ? Collections.emptyMap() : salesRollupRepository.findItemDtypes(itemIds);
+    }
+
+    /**
+     * item.dtype 값 (하위 타입의 @DiscriminatorValue). 프록시면 실제 클래스로 봐야 됨
+     */
+    private static String dtypeOf(Item item) {
+        DiscriminatorValue value = Hibernate.getClass(item).getAnnotation(DiscriminatorValue.class);
+        return value == null ? Hibernate.getClass(item).getSimpleName() : value.value();
+    }
+
+    //== 조회 ==//
+
+    public Result<ItemSalesDto> findItemSales(LocalDateTime from, LocalDateTime to, OrderStatus status, int limit) {
+        return readOnlyTx.execute(s -> isDayAligned(from, to)
+                ? Result.rollup(salesRollupRepository.findItemSales(from.toLocalDate(), to.toLocalDate(), status, limit))
+                : Result.raw(salesRollupRepository.findItemSalesRaw(from, to, status, limit)));
+    }
+
+    public Result<TypeSalesDto> findTypeSales(LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        return readOnlyTx.execute(s -> isDayAligned(from, to)
+                ? Result.rollup(salesRollupRepository.findTypeSales(from.toLocalDate(), to.toLocalDate(), status))
+                : Result.raw(salesRollupRepository.findTypeSalesRaw(from, to, status)));
+    }
+
+    public Result<DailySalesDto> findDailySales(LocalDateTime from, LocalDateTime to, OrderStatus status, String dtype) {
+        return readOnlyTx.execute(s -> isDayAligned(from, to)
+                ? Result.rollup(salesRollupRepository.findDailySales(from.toLocalDate(), to.toLocalDate(), status, dtype))
+                : Result.raw(salesRollupRepository.findDailySalesRaw(from, to, status, dtype)));
+    }
+
+    /**
+     * 집계 테이블은 하루 단위라 범위 양 끝이 자정일 때만 쓸 수 있음
+     */
+    private static boolean isDayAligned(LocalDateTime from, LocalDateTime to) {
+        return from.toLocalTime().equals(LocalTime.MIDNIGHT) && to.toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    //== 전체 재생성 ==//
+
+    /**
+     * 집계 테이블을 비우고 원본 주문에서 다시 계산
+     * 주문 id 구간(CHUNK)마다 트랜잭션을 끊음. 재생성하는 동안 들어온 주문은 구간에 따라 빠지거나 두 번 더해질 수 있으니
+     * 주문이 없는 시간(datagen 직후, 점검 중)에 돌려야 됨
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        tx.execute(s -> {
+            salesRollupRepository.deleteAll();
+            return null;
+        });
+        Object[] range = readOnlyTx.execute(s -> orderRepository.findOrderIdRange());
+        if (range != null && range[0] != null) {
+            long min = ((Number) range[0]).longValue();
+            long max = ((Number) range[1]).longValue();
+            for (long from = min; from <= max; from += CHUNK) {
+                long fromId = from;
+                long toId = Math.min(from + CHUNK - 1, max);
+                tx.execute(s -> salesRollupRepository.addOrderRange(fromId, toId));
+            }
+        }
+        int typeRows = tx.execute(s -> salesRollupRepository.rebuildTypeDaily());
+        log.info("sales rollup rebuilt: typeRows={} ({} ms)", typeRows, System.currentTimeMillis() - start);
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    @AllArgsConstructor
+    private static class DeltaKey {
+        private final LocalDate salesDate;
+        private final Long itemId;
+        private final String dtype;
+        private final OrderStatus status;
+    }
+
+    @Getter
+    public static class Result<T> {
+        private final String source; // rollup | raw
+        private final List<T> rows;
+
+        private Result(String source, List<T> rows) {
+            this.source = source;
+            this.rows = rows;
+        }
+
+        static <T> Result<T> rollup(List<T> rows) {
+            return new Result<>("rollup", rows);
+        }
+
+        static <T> Result<T> raw(List<T> rows) {
+            return new Result<>("raw", rows);
+        }
+    }
+}
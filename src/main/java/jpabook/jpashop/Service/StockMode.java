@@ -0,0 +1,19 @@
+package jpabook.jpashop.Service;
+
+/**
+ * 재고 차감 방식 (jpashop.stock.mode)
+ */
+public enum StockMode {
+    /**
+     * 엔티티를 조회해서 removeStock (변경감지). 동시에 같은 상품을 주문하면 @Version 충돌로 실패
+     */
+    ENTITY,
+    /**
+     * update ... where stock_quantity >= ? 한 방으로 차감. 엔티티 조회 없이 db가 원자적으로 처리
+     */
+    ATOMIC,
+    /**
+     * 재고/버전을 읽고 version이 그대로일 때만 update, 바뀌었으면 정해진 횟수만큼 다시 시도
+     */
+    OPTIMISTIC
+}
@@ -0,0 +1,159 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughtStockException;
+import jpabook.jpashop.exception.StockConflictException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 재고 차감/원복
+ *
+ * Item.removeStock은 읽고-계산하고-쓰는 방식이라 같은 상품에 주문이 몰리면
+ * 갱신 손실이 나거나(락 없을 때) 한 row에 줄을 서게 됨(락 걸었을 때).
+ * ATOMIC 모드는 조건부 update 한 번으로 db가 원자적으로 차감하니까 엔티티를 조회할 필요도 없고 락 잡는 시간도 짧음.
+ */
+@Service
+@Transactional(readOnly = true)
+public class StockService {
+
+    private final ItemRepository itemRepository;
+    private final HotStockLedger hotStockLedger;
+    private final StockMode mode;
+    private final int maxRetries;
+
+    public StockService(ItemRepository itemRepository,
+                        HotStockLedger hotStockLedger,
+                        @Value("${jpashop.stock.mode:ENTITY}") StockMode mode,
+                        @Value("${jpashop.stock.max-retries:10}") int maxRetries) {
+        this.itemRepository = itemRepository;
+        this.hotStockLedger = hotStockLedger;
+        this.mode = mode;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * 재고 차감 후 상품과 주문 가격을 반환
+     * 호출하는 쪽에서는 OrderItem.createReservedOrderItem으로 주문상품을 만들면 됨
+     * ENTITY 모드가 아니면 상품 엔티티를 읽지 않음 (프록시 + 가격만 조회)
+     *
+     * 재고 부족/충돌로 실패하면 아무것도 바뀌지 않은 상태라 바깥 트랜잭션을 rollback-only로 만들지 않음
+     * (롤백할지는 호출한 쪽이 정함)
+     */
+    @Transactional(noRollbackFor = {NotEnoughtStockException.class, StockConflictException.class})
+    public ReservedItem reserve(Long itemId, int count) {
+        decrease(itemId, count);
+        if (mode == StockMode.ENTITY && !hotStockLedger.isHot(itemId)) {
+            Item item = itemRepository.findOne(itemId); // 방금 차감하면서 영속성 컨텍스트에 올라와 있음
+            return new ReservedItem(item, item.getPrice());
+        }
+        return reference(itemId);
+    }
+
+    /**
+     * 주문 한 건의 상품별 재고를 전부 차감하거나, 하나라도 실패하면 앞에서 차감한 것까지 되돌리고 예외를 던짐
+     * 대량 주문처럼 한 트랜잭션에서 여러 주문을 처리하면서 실패한 주문만 빼고 싶을 때 사용
+     * 상품 id 순서로 차감해서 주문끼리 row 락을 엇갈려 잡지 않게 함
+     *
+     * @param counts 상품 id별 수량
+     */
+    @Transactional(noRollbackFor = {NotEnoughtStockException.class, StockConflictException.class})
+    public void reserveAll(Map<Long, Integer> counts) {
+        Map<Long, Integer> reserved = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> entry : new TreeMap<>(counts).entrySet()) {
+                decrease(entry.getKey(), entry.getValue());
+                reserved.put(entry.getKey(), entry.getValue());
+            }
+        } catch (NotEnoughtStockException | StockConflictException e) {
+            reserved.forEach(this::increase);
+            throw e;
+        }
+    }
+
+    /**
+     * 실패해도 재고는 그대로 (조건이 안 맞으면 update/CAS를 안 하고 예외)
+     */
+    private void decrease(Long itemId, int count) {
+        if (hotStockLedger.isHot(itemId)) { // hot item은 모드와 상관없이 메모리 장부에서 차감
+            hotStockLedger.reserve(itemId, count);
+            return;
+        }
+        switch (mode) {
+            case ATOMIC:
+                if (!itemRepository.decreaseStock(itemId, count)) {
+                    throw new NotEnoughtStockException("need more stock");
+                }
+                return;
+            case OPTIMISTIC:
+                reserveOptimistic(itemId, count);
+                return;
+            default:
+                itemRepository.findOne(itemId).removeStock(count);
+        }
+    }
+
+    private void increase(Long itemId, int count) {
+        if (hotStockLedger.isHot(itemId)) {
+            hotStockLedger.release(itemId, count);
+        } else if (mode == StockMode.ENTITY) {
+            itemRepository.findOne(itemId).addStock(count);
+        } else {
+            // 더하기는 조건 없이 update 한 번이면 원자적
+            itemRepository.increaseStock(itemId, count);
+        }
+    }
+
+    private ReservedItem reference(Long itemId) {
+        return new ReservedItem(itemRepository.getReference(itemId), itemRepository.findPrice(itemId));
+    }
+
+    /**
+     * 주문 취소 + 재고 원복
+     */
+    @Transactional
+    public void cancel(Order order) {
+        order.markCanceled();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            Long itemId = orderItem.getItem().getId();
+            if (mode == StockMode.ENTITY && !hotStockLedger.isHot(itemId)) {
+                orderItem.cancel();
+            } else {
+                increase(itemId, orderItem.getCount());
+            }
+        }
+    }
+
+    /**
+     * version이 바뀌지 않았을 때만 반영. 예외로 트랜잭션을 깨지 않고 update 결과(0/1)로 충돌을 판단해서
+     * 같은 트랜잭션 안에서 바로 다시 시도할 수 있음
+     */
+    private void reserveOptimistic(Long itemId, int count) {
+        for (int attempt = 0; attempt < maxRetries; attempt++) {
+            Object[] current = itemRepository.findStockAndVersion(itemId);
+            int stockQuantity = (Integer) current[0];
+            Long version = (Long) current[1];
+
+            int restStock = stockQuantity - count;
+            if (restStock < 0) {
+                throw new NotEnoughtStockException("need more stock");
+            }
+            if (itemRepository.updateStockIfVersion(itemId, restStock, version)) {
+                return;
+            }
+        }
+        throw new StockConflictException("재고 변경 요청이 몰려서 처리하지 못했습니다. itemId=" + itemId);
+    }
+
+    public StockMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.Service;
+
+/**
+ * 버전을 따로 관리하는 자원 단위. 이 자원이 바뀌면 보여주는 목록 API의 ETag가 바뀜
+ */
+public enum VersionedResource {
+    MEMBER, ORDER, ITEM
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.Service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 주문 + 주문상품 조회용 DTO (엔티티 -> DTO 변환은 OrderQueryService 트랜잭션 안에서)
+ */
+@Getter
+public class OrderDto {
+
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+    private List<OrderItemDto> orderItems;
+
+    public OrderDto(Order order) {
+        orderId = order.getId();
+        name = order.getMember().getName();
+        orderDate = order.getOrderDate();
+        orderStatus = order.getStatus();
+        // address는 밸류 오브젝트라 바뀔 일이 없어서 그냥 써도 됨.
+        address = order.getDelivery().getAddress();
+//            이거는 orderItem을 OrderItemDto가 아닌 엔티티인 OrderItem을 가지고 왔을 때 얘기
+//            order.getOrderItems().stream().forEach(o -> o.getItem().getName()); // 프록시 초기화. 이거 안 하면 orderItem은 엔티티여서 안 보임
+        orderItems = order.getOrderItems().stream()
+                .map(orderItem -> new OrderItemDto(orderItem))
+                .collect(toList());
+    }
+}
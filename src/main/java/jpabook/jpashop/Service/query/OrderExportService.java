@@ -0,0 +1,57 @@
+package jpabook.jpashop.Service.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 주문 전체를 NDJSON(한 줄에 주문 하나)으로 내보냄
+ * flat row를 커서로 읽으면서 주문 하나가 완성될 때마다 바로 출력 스트림에 쓰기 때문에
+ * heap에는 주문 한 건 + fetchSize만큼의 row만 올라감. 테이블 크기와 상관없이 메모리 사용량이 일정
+ */
+@Service
+@Transactional(readOnly = true) // 커서는 트랜잭션(커넥션)이 열려있는 동안만 읽을 수 있음
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int CLEAR_INTERVAL = 1000; // 주문 1000건마다 영속성 컨텍스트 비움
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    public void exportNdjson(OutputStream out) throws IOException {
+        // writeValue()가 끝날 때마다 response 스트림을 닫아버리지 않게
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE)) {
+            OrderFlatAssembler orders = new OrderFlatAssembler(rows.iterator());
+            int written = 0;
+            while (orders.hasNext()) {
+                writeLine(writer, out, orders.next());
+                if (++written % CLEAR_INTERVAL == 0) {
+                    em.clear();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream out, OrderQueryDto order) throws IOException {
+        writer.writeValue(out, order);
+        out.write('\n');
+    }
+}
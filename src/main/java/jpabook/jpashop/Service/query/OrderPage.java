@@ -0,0 +1,13 @@
+package jpabook.jpashop.Service.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class OrderPage<T> {
+    private List<T> data;
+    private String next;    // 다음 페이지 cursor (마지막 페이지면 null)
+}
@@ -1,14 +1,87 @@
 package jpabook.jpashop.Service.query;
 
-import jpabook.jpashop.api.OrderApiController;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.exception.InvalidPageRequestException;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
 
+/**
+ * 화면/API용 주문 조회
+ *
+ * readOnly 트랜잭션이라
+ * - 스프링이 세션을 읽기 전용(setDefaultReadOnly) + flush 모드 MANUAL로 열어줌
+ *   -> 불러온 엔티티의 스냅샷을 안 남기고(변경감지 X) 커밋할 때 flush도 안 함
+ * - 리포지토리 쿼리에도 읽기 전용 힌트가 붙음 (ReadOnlyQuery)
+ * 주문 1000건 + 주문상품 페이지면 스냅샷만큼 heap이 덜 들고 커밋 때 dirty checking 비용도 없음
+ */
+@Service
 @Transactional(readOnly = true)
+@RequiredArgsConstructor
 public class OrderQueryService {
     // Transaction 안에서 돌아가니까 open in view를 꺼도 이 안에 있는 코드는 다 돌아감
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+
+    public List<OrderDto> ordersV3(int offset, int limit) {
+        return toOrderDtos(orderRepository.findAllWithItem(offset, limit));
+    }
+
+    public List<OrderDto> ordersV3_page(int offset, int limit) {
+        // ToOne 관계는 Order를 기준으로 패치 조인
+        return toOrderDtos(orderRepository.findAllWithMemberDelivery(offset, limit));
+    }
+
+    public OrderPage<OrderDto> ordersV3_cursor(OrderCursor cursor, int limit) {
+        validateLimit(limit);
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(cursor, limit);
+        String next = orders.size() < limit
+                ? null
+                : cursor.next(orders.get(orders.size() - 1)).encode();
+        return new OrderPage<>(toOrderDtos(orders), next);
+    }
+
+    /**
+     * flat 조회를 주문 단위로 페이징. 커서로 읽는 동안 트랜잭션(커넥션)이 유지되어야 함
+     */
+    public List<OrderQueryDto> ordersV6_page(Long lastOrderId, int limit) {
+        validateLimit(limit);
+        return orderQueryRepository.findAllByDto_flat(lastOrderId, limit);
+    }
+
+    /**
+     * db가 만든 JSON을 그대로 돌려줌 (OrderQueryRepository.findAllByDto_json)
+     */
+    public byte[] ordersV5_json() {
+        return orderQueryRepository.findAllByDto_json();
+    }
+
+    public List<SimpleOrderDto> simpleOrdersV3() {
+        return orderRepository.findAllWithMemberDelivery().stream()
+                .map(SimpleOrderDto::new)
+                .collect(toList());
+    }
+
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("limit은 1 ~ " + MAX_PAGE_SIZE + " 사이여야 합니다. limit=" + limit);
+        }
+    }
+
+    private List<OrderDto> toOrderDtos(List<Order> orders) {
+        return orders.stream()
+                .map(OrderDto::new)
+                .collect(toList());
+    }
 }
@@ -0,0 +1,28 @@
+package jpabook.jpashop.Service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 + 회원 + 배송 (xToOne만) 조회용 DTO
+ */
+@Data
+public class SimpleOrderDto {
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+
+    public SimpleOrderDto(Order o) {
+        orderId = o.getId();
+        name = o.getMember().getName(); // LAZY 초기화 - 영속성 컨텍스트가 찾아보고 없으면 DB 쿼리 날려서 가져옴
+        orderDate = o.getOrderDate();
+        orderStatus = o.getStatus();
+        address = o.getDelivery().getAddress();
+    }
+}
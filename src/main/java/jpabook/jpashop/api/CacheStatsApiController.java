@@ -0,0 +1,92 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 2차 캐시 영역별 hit/miss 통계
+ * hit율이 낮은데 영역이 꽉 차 있으면(size가 ehcache.xml의 heap에 닿으면) 크기를 늘려야 됨
+ * hibernate.generate_statistics가 켜져 있어야 값이 쌓임 (꺼져 있으면 enabled=false)
+ * 캐시 영역 이름/크기가 그대로 보이니까 dev 프로필(--spring.profiles.active=dev)에서만 엔드포인트를 띄움
+ */
+@Profile("dev")
+@RestController
+public class CacheStatsApiController {
+
+    private final Statistics statistics;
+
+    public CacheStatsApiController(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @GetMapping("/api/cache/stats")
+    public CacheStatsResponse cacheStats() {
+        List<RegionStatsDto> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .filter(name -> statistics.getCacheRegionStatistics(name) != null)
+                .map(name -> new RegionStatsDto(name, statistics.getCacheRegionStatistics(name)))
+                .collect(Collectors.toList());
+        QueryCacheStatsDto queryCache = new QueryCacheStatsDto(
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount());
+        return new CacheStatsResponse(statistics.isStatisticsEnabled(), regions, queryCache);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheStatsResponse {
+        private boolean enabled;
+        private List<RegionStatsDto> regions;
+        private QueryCacheStatsDto queryCache;
+    }
+
+    @Data
+    static class RegionStatsDto {
+        private String region;
+        private long hit;
+        private long miss;
+        private long put;
+        private double hitRatio;
+        private long size; // 메모리에 올라가 있는 개수 (provider가 모르면 음수)
+
+        public RegionStatsDto(String region, CacheRegionStatistics stats) {
+            this.region = region;
+            this.hit = stats.getHitCount();
+            this.miss = stats.getMissCount();
+            this.put = stats.getPutCount();
+            this.hitRatio = ratio(hit, miss);
+            this.size = stats.getElementCountInMemory();
+        }
+    }
+
+    @Data
+    static class QueryCacheStatsDto {
+        private long hit;
+        private long miss;
+        private long put;
+        private double hitRatio;
+
+        public QueryCacheStatsDto(long hit, long miss, long put) {
+            this.hit = hit;
+            this.miss = miss;
+            this.put = put;
+            this.hitRatio = ratio(hit, miss);
+        }
+    }
+
+    private static double ratio(long hit, long miss) {
+        return hit + miss == 0 ? 0 : (double) hit / (hit + miss);
+    }
+}
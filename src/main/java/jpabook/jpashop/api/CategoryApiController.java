@@ -0,0 +1,93 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.Service.CategoryService;
+import jpabook.jpashop.Service.CategoryTree;
+import jpabook.jpashop.domain.item.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private final CategoryService categoryService;
+
+    /**
+     * 메뉴용 전체 트리. db 조회 없이 메모리 스냅샷에서 만듦
+     */
+    @GetMapping("/api/categories")
+    public Result<List<CategoryMenuDto>> categories() {
+        CategoryTree tree = categoryService.getTree();
+        List<CategoryMenuDto> menu = tree.getRoots().stream()
+                .map(root -> new CategoryMenuDto(tree, root))
+                .collect(Collectors.toList());
+        return new Result<>(menu);
+    }
+
+    @GetMapping("/api/categories/{id}/breadcrumb")
+    public Result<List<CategoryDto>> breadcrumb(@PathVariable("id") Long id) {
+        List<CategoryDto> breadcrumb = categoryService.getTree().getBreadcrumb(id).stream()
+                .map(node -> new CategoryDto(node.getId(), node.getName()))
+                .collect(Collectors.toList());
+        return new Result<>(breadcrumb);
+    }
+
+    /**
+     * 하위 카테고리까지 포함한 상품 목록 (쿼리 한 번)
+     */
+    @GetMapping("/api/categories/{id}/items")
+    public Result<List<CategoryItemDto>> items(@PathVariable("id") Long id) {
+        List<CategoryItemDto> items = categoryService.findItemsInSubtree(id).stream()
+                .map(CategoryItemDto::new)
+                .collect(Collectors.toList());
+        return new Result<>(items);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryDto {
+        private Long id;
+        private String name;
+    }
+
+    @Data
+    static class CategoryMenuDto {
+        private Long id;
+        private String name;
+        private List<CategoryMenuDto> children;
+
+        public CategoryMenuDto(CategoryTree tree, CategoryTree.Node node) {
+            this.id = node.getId();
+            this.name = node.getName();
+            this.children = tree.getChildren(node.getId()).stream()
+                    .map(child -> new CategoryMenuDto(tree, child))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long id;
+        private String name;
+        private int price;
+
+        public CategoryItemDto(Item item) {
+            this.id = item.getId();
+            this.name = item.getName();
+            this.price = item.getPrice();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 엔드포인트별로 JPA 대신 JDBC 조회(OrderJdbcQueryRepository)를 쓸지 (application.yml의 jpashop.jdbc-read.*)
+ * 응답은 같음. 기본은 전부 JPA
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "jpashop.jdbc-read")
+public class JdbcReadProperties {
+
+    private boolean simpleOrdersV4; // /api/v4/simple-orders
+    private boolean ordersV5;       // /api/v5/orders
+}
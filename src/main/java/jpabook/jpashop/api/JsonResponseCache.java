@@ -0,0 +1,169 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jpabook.jpashop.Service.ResourceChangedEvent;
+import jpabook.jpashop.Service.VersionedResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 직렬화가 끝난 JSON(UTF-8 byte[]) 응답 캐시
+ *
+ * - hit이면 DTO 조회, Jackson 직렬화 둘 다 건너뛰고 byte[]를 그대로 응답 스트림에 씀 (ByteArrayHttpMessageConverter)
+ * - 전체 크기(max-bytes) 기준 LRU. 한 응답이 max-entry-bytes보다 크면 캐시하지 않음
+ * - key는 API 이름 + 파라미터 + 자원 버전(ETag)이라 다른 인스턴스에서 바뀐 데이터도 버전이 바뀌면 새 key로 읽음
+ *   이 인스턴스에서 바뀐 건 ResourceChangedEvent를 받아서 바로 지움 (메모리 반납)
+ */
+@Component
+public class JsonResponseCache implements MeterBinder {
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // accessOrder = true -> get할 때마다 맨 뒤로, 맨 앞이 가장 오래 안 쓴 것
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JsonResponseCache(ObjectMapper objectMapper,
+                             @Value("${jpashop.response-cache.max-bytes:67108864}") long maxBytes,
+                             @Value("${jpashop.response-cache.max-entry-bytes:8388608}") long maxEntryBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * 캐시된 JSON으로 응답. 없으면 loader로 만들어서 직렬화한 다음 넣어둠
+     *
+     * @param key       API 이름 + 파라미터 + ETag. null(ETag를 못 만듦)이면 캐시하지 않음
+     * @param dependsOn 응답에 들어가는 자원. 이 자원이 바뀌면 지워짐
+     */
+    public ResponseEntity<byte[]> respond(String key, Set<VersionedResource> dependsOn, Supplier<?> loader) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(get(key, dependsOn, loader));
+    }
+
+    public byte[] get(String key, Set<VersionedResource> dependsOn, Supplier<?> loader) {
+        if (key == null) {
+            return serialize(loader.get());
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.body;
+            }
+        }
+        misses.increment();
+        // 조회, 직렬화는 락 밖에서. 같은 key를 동시에 만들면 둘 다 만들고 나중 것이 남음
+        byte[] body = serialize(loader.get());
+        if (body.length <= maxEntryBytes) {
+            put(key, new Entry(body, dependsOn));
+        }
+        return body;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("응답 직렬화 실패", e);
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                totalBytes -= old.body.length;
+            }
+            totalBytes += entry.body.length;
+            Iterator<Entry> lru = entries.values().iterator();
+            while (totalBytes > maxBytes && lru.hasNext()) {
+                totalBytes -= lru.next().body.length;
+                lru.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (!Collections.disjoint(entry.dependsOn, event.getResources())) {
+                    totalBytes -= entry.body.length;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jpashop.response.cache.bytes", this, c -> c.sizeInBytes())
+                .description("serialized bytes held by the JSON response cache")
+                .register(registry);
+        Gauge.builder("jpashop.response.cache.entries", this, c -> c.size())
+                .register(registry);
+        FunctionCounter.builder("jpashop.response.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("jpashop.response.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("jpashop.response.cache.evictions", evictions, LongAdder::sum)
+                .register(registry);
+    }
+
+    public long sizeInBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final byte[] body;
+        private final Set<VersionedResource> dependsOn;
+
+        Entry(byte[] body, Set<VersionedResource> dependsOn) {
+            this.body = body;
+            this.dependsOn = dependsOn.isEmpty() ? EnumSet.noneOf(VersionedResource.class) : EnumSet.copyOf(dependsOn);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.Service.MemberService;
+import jpabook.jpashop.Service.ResourceVersionService;
+import jpabook.jpashop.Service.VersionedResource;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.FieldProjection;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +23,8 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final ResourceVersionService resourceVersionService;
+    private final JsonResponseCache jsonResponseCache;
 
     // 이렇게 엔티티를 직접 반환하면 안 됨
     @GetMapping("/api/v1/members")
@@ -23,13 +32,30 @@ public class MemberApiController {
         return memberService.findMembers();
     }
 
+    /**
+     * 회원이 바뀌지 않았으면(If-None-Match가 지금 ETag와 같으면) db 조회 없이 304
+     * 바뀌었어도 이 버전으로 이미 만든 응답이 있으면 직렬화된 JSON을 그대로 내보냄
+     *
+     * ?fields=name 처럼 주면 그 컬럼만 select 해서 고른 필드만 내보냄 (MemberDto에 있는 필드만 고를 수 있음)
+     */
     @GetMapping("/api/v2/members")
-    public Result memberV2() {
-        List<Member> findMembers = memberService.findMembers();
-        List<MemberDto> collect = findMembers.stream().map(m -> new MemberDto(m.getName()))
-                .collect(Collectors.toList());
-        return new Result(collect);
-
+    public ResponseEntity<byte[]> memberV2(@RequestParam(value = "fields", required = false) String fields,
+                                           WebRequest request) {
+        FieldProjection.Plan plan = fields == null ? null : memberService.compileFields(fields);
+        String etag = resourceVersionService.etag(plan == null ? "members-v2" : "members-v2:" + plan.getKey(),
+                VersionedResource.MEMBER);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return jsonResponseCache.respond(etag, EnumSet.of(VersionedResource.MEMBER), () -> {
+            if (plan != null) {
+                return new Result<>(memberService.findMembers(plan));
+            }
+            List<Member> findMembers = memberService.findMembers();
+            List<MemberDto> collect = findMembers.stream().map(m -> new MemberDto(m.getName()))
+                    .collect(Collectors.toList());
+            return new Result(collect);
+        });
     }
 
     @Data
@@ -79,6 +105,7 @@ public class MemberApiController {
 
     @Data
     static class UpdateMemberRequest {
+        @NotEmpty
         private String name;
     }
 
@@ -1,22 +1,39 @@
 package jpabook.jpashop.api;
 
-import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.Service.BulkOrderCommand;
+import jpabook.jpashop.Service.BulkOrderResult;
+import jpabook.jpashop.Service.OrderService;
+import jpabook.jpashop.Service.ResourceVersionService;
+import jpabook.jpashop.Service.VersionedResource;
+import jpabook.jpashop.Service.query.OrderDto;
+import jpabook.jpashop.Service.query.OrderExportService;
+import jpabook.jpashop.Service.query.OrderPage;
+import jpabook.jpashop.Service.query.OrderQueryService;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
-import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.FieldProjection;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.jdbc.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.time.LocalDateTime;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
 
 import static java.util.stream.Collectors.*;
@@ -27,6 +44,13 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderQueryService orderQueryService;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
+    private final ResourceVersionService resourceVersionService;
+    private final JsonResponseCache jsonResponseCache;
+    private final OrderJdbcQueryRepository orderJdbcQueryRepository;
+    private final JdbcReadProperties jdbcReadProperties;
 
     // 엔티티를 노출
     @GetMapping("/api/v1/orders")
@@ -52,39 +76,38 @@ public class OrderApiController {
         return result;
     }
 
-    @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
-//        for (Order order :
-//                orders) {
-//            System.out.println("order = " + order + ", " + "orderId = " + order.getId());
-//            System.out.println("orderItems = " + order.getOrderItems());
-//            System.out.println();
-//        }
-        List<OrderDto> result = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return result;
-    }
-
     /**
      * OSIV를 끄고나면 (application.yml에 false로 설정함)
      * Service.query.OrderQueryService 안에 위의 로직을 전부 옮기고
      * 여기서는 그냥 return orderQueryService.ordersV3();로 끝내면 됨
+     * -> v3, v3.1, v3.2는 옮김 (읽기 전용 트랜잭션이라 변경감지용 스냅샷도 안 남음)
      */
-
-
+    // 컬렉션 fetch join이라 주문 id를 먼저 페이징하고 그 주문들만 fetch join (OrderRepository.findAllWithItem)
+    @GetMapping("/api/v3/orders")
+    public List<OrderDto> ordersV3(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                   @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return orderQueryService.ordersV3(offset, limit);
+    }
 
     @GetMapping("/api/v3.1/orders")
     public List<OrderDto> ordersV3_page(@RequestParam(value = "offset", defaultValue = "0") int offset
                                         , @RequestParam(value = "limit", defaultValue = "100") int limit) {
-        // ToOne 관계는 Order를 기준으로 패치 조인
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+        return orderQueryService.ordersV3_page(offset, limit);
+    }
 
-        List<OrderDto> result = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return result;
+    /**
+     * v3.1의 키셋(cursor) 페이징 버전
+     * 첫 요청은 cursor 없이 보내고(sort=orderDate면 주문일 순서), 이후에는 응답의 next를 그대로 cursor로 넘기면 됨
+     * next가 null이면 마지막 페이지
+     */
+    @GetMapping("/api/v3.2/orders")
+    public OrderPage<OrderDto> ordersV3_cursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        OrderCursor current = cursor != null
+                ? OrderCursor.decode(cursor)
+                : OrderCursor.first("orderDate".equals(sort));
+        return orderQueryService.ordersV3_cursor(current, limit);
     }
 
     @GetMapping("/api/v4/orders")
@@ -97,9 +120,47 @@ public class OrderApiController {
         return orderQueryRepository.findOrderQueryDtos();
     }
 
+    /**
+     * 주문, 회원 이름, 상품 이름이 나감. 셋 다 그대로면 db 조회 없이 304
+     * 같은 버전의 응답은 직렬화된 JSON(JsonResponseCache)을 그대로 내보냄
+     *
+     * ?fields=orderId,orderStatus,orderItems 처럼 주면 고른 필드만 select (OrderFields + orderItems)
+     */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
-        return orderQueryRepository.findAllByDto_optimization();
+    public ResponseEntity<byte[]> ordersV5(@RequestParam(value = "fields", required = false) String fields,
+                                           WebRequest request) {
+        FieldProjection.Plan plan = fields == null ? null : orderQueryRepository.compileFields(fields);
+        String etag = resourceVersionService.etag(plan == null ? "orders-v5" : "orders-v5:" + plan.getKey(),
+                VersionedResource.ORDER, VersionedResource.MEMBER, VersionedResource.ITEM);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return jsonResponseCache.respond(etag,
+                EnumSet.of(VersionedResource.ORDER, VersionedResource.MEMBER, VersionedResource.ITEM),
+                () -> {
+                    if (plan != null) {
+                        return orderQueryRepository.findAllByDto_optimization(plan);
+                    }
+                    return jdbcReadProperties.isOrdersV5()
+                            ? orderJdbcQueryRepository.findAllByDto_optimization()
+                            : orderQueryRepository.findAllByDto_optimization();
+                });
+    }
+
+    /**
+     * v5와 같은 응답을 db가 JSON_OBJECT/JSON_ARRAYAGG로 만들어서 한 번에 줌
+     * 받은 byte[]를 그대로 응답에 씀 (DTO, Jackson 안 거침)
+     */
+    @GetMapping("/api/v5.1/orders")
+    public ResponseEntity<byte[]> ordersV5_1(WebRequest request) {
+        String etag = resourceVersionService.etag("orders-v5.1",
+                VersionedResource.ORDER, VersionedResource.MEMBER, VersionedResource.ITEM);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderQueryService.ordersV5_json());
     }
 
     /**
@@ -171,57 +232,75 @@ public class OrderApiController {
 
     /**
      * flat으로 루프를 돌림. OrderFlatDto를 OrderQueryDto로 바꾸는 것.
+     * groupingBy(Map) 대신 order by o.id로 정렬된 row를 한 번만 훑어서 조립 (순서 유지)
+     * limit을 주면 주문 단위로 페이징 (다음 페이지는 lastOrderId에 마지막 orderId)
      */
     @GetMapping("/api/v6/orders")
-    public List<OrderQueryDto> ordersV6() {
-        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),
-                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
-                                o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(), e.getValue()))
+    public List<OrderQueryDto> ordersV6(@RequestParam(value = "lastOrderId", required = false) Long lastOrderId,
+                                        @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit == null) {
+            return OrderFlatAssembler.assemble(orderQueryRepository.findAllByDto_flat());
+        }
+        return orderQueryService.ordersV6_page(lastOrderId, limit);
+    }
+
+    /**
+     * 전체 주문 export (NDJSON, 한 줄에 주문 하나)
+     * List로 모으지 않고 커서로 읽는 대로 response에 바로 쓰니까 주문이 아무리 많아도 heap 사용량이 일정함
+     */
+    @GetMapping("/api/orders/export")
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        orderExportService.exportNdjson(response.getOutputStream());
+    }
+
+    /**
+     * 대량 주문 등록
+     * 건별로 성공/실패를 돌려주고, 실패한 주문이 있어도 나머지는 저장됨
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse saveOrdersBulk(@RequestBody @Valid BulkOrderRequest request) {
+        List<BulkOrderCommand> commands = request.getOrders().stream()
+                .map(o -> new BulkOrderCommand(o.getMemberId(), o.getLines().stream()
+                        .map(l -> new BulkOrderCommand.Line(l.getItemId(), l.getCount()))
+                        .collect(toList())))
                 .collect(toList());
+        return new BulkOrderResponse(orderService.orderBulk(commands));
     }
-    @Getter
-    static class OrderDto {
-
-        private Long orderId;
-        private String name;
-        private LocalDateTime orderDate;
-        private OrderStatus orderStatus;
-        private Address address;
-        private List<OrderItemDto> orderItems;
-
-        public OrderDto(Order order) {
-            orderId = order.getId();
-            name = order.getMember().getName();
-            orderDate = order.getOrderDate();
-            orderStatus = order.getStatus();
-            // address는 밸류 오브젝트라 바뀔 일이 없어서 그냥 써도 됨.
-            address = order.getDelivery().getAddress();
-//            이거는 orderItem을 OrderItemDto가 아닌 엔티티인 OrderItem을 가지고 왔을 때 얘기
-//            order.getOrderItems().stream().forEach(o -> o.getItem().getName()); // 프록시 초기화. 이거 안 하면 orderItem은 엔티티여서 안 보임
-            orderItems = order.getOrderItems().stream()
-                    .map(orderItem -> new OrderItemDto(orderItem))
-                    .collect(toList());
-        }
+
+    @Data
+    static class BulkOrderRequest {
+        @NotEmpty @Valid
+        private List<BulkOrderLineRequest> orders;
     }
 
-    @Getter
-    static class OrderItemDto {
+    @Data
+    static class BulkOrderLineRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty @Valid
+        private List<OrderLine> lines;
+    }
 
-        private String itemName;    // 상품 명
-        private int orderPrice;     // 주문 가격
-        private int count;          // 주문 수량
+    @Data
+    static class OrderLine {
+        @NotNull
+        private Long itemId;
+        @Positive // 0이나 음수면 재고가 오히려 늘어남
+        private int count;
+    }
+
+    @Getter
+    static class BulkOrderResponse {
+        private int succeeded;
+        private int failed;
+        private List<BulkOrderResult> results;
 
-        public OrderItemDto(OrderItem orderItem) {
-            itemName = orderItem.getItem().getName();
-            orderPrice = orderItem.getOrderPrice();
-            count = orderItem.getCount();
+        public BulkOrderResponse(List<BulkOrderResult> results) {
+            this.results = results;
+            this.succeeded = (int) results.stream().filter(BulkOrderResult::isSuccess).count();
+            this.failed = results.size() - succeeded;
         }
     }
 }
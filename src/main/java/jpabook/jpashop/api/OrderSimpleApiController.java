@@ -1,16 +1,25 @@
 package jpabook.jpashop.api;
 
+import jpabook.jpashop.Service.ResourceVersionService;
+import jpabook.jpashop.Service.VersionedResource;
+import jpabook.jpashop.Service.query.OrderQueryService;
+import jpabook.jpashop.Service.query.SimpleOrderDto;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.FieldProjection;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.jdbc.OrderJdbcQueryRepository;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
-import lombok.Data;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,6 +39,11 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderQueryService orderQueryService;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final OrderJdbcQueryRepository orderJdbcQueryRepository;
+    private final JdbcReadProperties jdbcReadProperties;
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
@@ -57,13 +71,9 @@ public class OrderSimpleApiController {
     }
 
     @GetMapping("/api/v3/simple-orders")
-    // 쿼리 한 번 나옴
+    // 쿼리 한 번 나옴. 읽기 전용 트랜잭션 안에서 DTO로 바꿈 (OrderQueryService)
     public List<SimpleOrderDto> orderV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
-        List<SimpleOrderDto> result = orders.stream()
-                .map(o -> new SimpleOrderDto(o))
-                .collect(Collectors.toList());
-        return result;
+        return orderQueryService.simpleOrdersV3();
     }
 
 
@@ -75,28 +85,59 @@ public class OrderSimpleApiController {
 //    public List<OrderSimpleQueryDto> orderV4() {
 //        return orderRepository.findOrderDtos();
 //    }
-    public List<OrderSimpleQueryDto> orderV4() {
+    // ?fields=orderId,orderStatus 처럼 주면 그 필드만 select (OrderFields 참고)
+    public List<?> orderV4(@RequestParam(value = "fields", required = false) String fields, WebRequest request) {
+        FieldProjection.Plan plan = fields == null ? null : orderSimpleQueryRepository.compileFields(fields);
+        // 주문 + 회원 이름이 나가니까 둘 중 하나라도 바뀌면 ETag가 바뀜
+        if (request.checkNotModified(resourceVersionService.etag(
+                plan == null ? "simple-orders-v4" : "simple-orders-v4:" + plan.getKey(),
+                VersionedResource.ORDER, VersionedResource.MEMBER))) {
+            return null;
+        }
+        if (plan != null) {
+            return orderSimpleQueryRepository.findOrderDtos(plan);
+        }
+        if (jdbcReadProperties.isSimpleOrdersV4()) {
+            return orderJdbcQueryRepository.findOrderDtos();
+        }
         return orderSimpleQueryRepository.findOrderDtos();
     }
 
+    /**
+     * 주문 요약 테이블(order_summary)만 읽음. join 없음
+     * 요약은 주문/취소 트랜잭션에서 같이 갱신됨
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public List<OrderSummaryDto> orderV5(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return orderSummaryRepository.findAll(offset, limit).stream()
+                .map(OrderSummaryDto::new)
+                .collect(Collectors.toList());
+    }
+
     /**
      * v1과 v2 둘 다 LAZY loading으로인한 너무 많은 데이터 쿼리 호출이 문제임
+     * SimpleOrderDto는 Service.query로 옮김
      */
-    @Data
-    static class SimpleOrderDto {
+
+    @Getter
+    static class OrderSummaryDto {
         private Long orderId;
         private String name;
         private LocalDateTime orderDate;
         private OrderStatus orderStatus;
         private Address address;
+        private int itemCount;
+        private int totalPrice;
 
-        public SimpleOrderDto(Order o) {
-            orderId = o.getId();
-            name = o.getMember().getName(); // LAZY 초기화 - 영속성 컨텍스트가 찾아보고 없으면 DB 쿼리 날려서 가져옴
-            orderDate = o.getOrderDate();
-            orderStatus = o.getStatus();
-            address = o.getDelivery().getAddress();
+        public OrderSummaryDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            address = summary.getAddress();
+            itemCount = summary.getItemCount();
+            totalPrice = summary.getTotalPrice();
         }
     }
-
 }
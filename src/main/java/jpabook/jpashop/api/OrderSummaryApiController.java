@@ -0,0 +1,36 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.Service.OrderSummaryService;
+import jpabook.jpashop.Service.OrderSummaryService.ConsistencyReport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * order_summary 읽기 모델 관리 (재생성, 정합성 검사)
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderSummaryApiController {
+
+    private final OrderSummaryService orderSummaryService;
+
+    @PostMapping("/api/admin/order-summary/rebuild")
+    public RebuildResponse rebuild() {
+        return new RebuildResponse(orderSummaryService.rebuild());
+    }
+
+    @GetMapping("/api/admin/order-summary/check")
+    public ConsistencyReport check() {
+        return orderSummaryService.check();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RebuildResponse {
+        private long rows;
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.Service.SalesService;
+import jpabook.jpashop.Service.SalesService.Result;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.sales.DailySalesDto;
+import jpabook.jpashop.repository.sales.ItemSalesDto;
+import jpabook.jpashop.repository.sales.TypeSalesDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 매출 분석 (orderPrice x count)
+ *
+ * from, to는 [from, to) 범위. 2022-09-01 처럼 날짜만 주거나 2022-09-01T10:00 처럼 시각까지 줄 수 있음
+ * 날짜 단위면 집계 테이블에서 바로 답하고(source=rollup), 시각이 들어가면 원본을 group by 함(source=raw)
+ * 기본값은 최근 30일
+ */
+@RestController
+@RequiredArgsConstructor
+public class SalesApiController {
+
+    private final SalesService salesService;
+
+    @GetMapping("/api/sales/items")
+    public Result<ItemSalesDto> itemSales(@RequestParam(value = "from", required = false) String from,
+                                          @RequestParam(value = "to", required = false) String to,
+                                          @RequestParam(value = "status", defaultValue = "ORDER") OrderStatus status,
+                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        LocalDateTime end = parseTo(to);
+        return salesService.findItemSales(parseFrom(from, end), end, status, limit);
+    }
+
+    @GetMapping("/api/sales/types")
+    public Result<TypeSalesDto> typeSales(@RequestParam(value = "from", required = false) String from,
+                                          @RequestParam(value = "to", required = false) String to,
+                                          @RequestParam(value = "status", defaultValue = "ORDER") OrderStatus status) {
+        LocalDateTime end = parseTo(to);
+        return salesService.findTypeSales(parseFrom(from, end), end, status);
+    }
+
+    /**
+     * dtype(B, A, M)을 주면 그 타입만
+     */
+    @GetMapping("/api/sales/daily")
+    public Result<DailySalesDto> dailySales(@RequestParam(value = "from", required = false) String from,
+                                            @RequestParam(value = "to", required = false) String to,
+                                            @RequestParam(value = "status", defaultValue = "ORDER") OrderStatus status,
+                                            @RequestParam(value = "dtype", required = false) String dtype) {
+        LocalDateTime end = parseTo(to);
+        return salesService.findDailySales(parseFrom(from, end), end, status, dtype);
+    }
+
+    /**
+     * 집계 테이블 전체 재생성 (주문이 없는 시간에)
+     */
+    @PostMapping("/api/admin/sales/rebuild")
+    public void rebuild() {
+        salesService.rebuild();
+    }
+
+    private static LocalDateTime parseTo(String to) {
+        return to == null ? LocalDate.now().plusDays(1).atStartOfDay() : parse(to);
+    }
+
+    private static LocalDateTime parseFrom(String from, LocalDateTime to) {
+        return from == null ? to.minusDays(30) : parse(from);
+    }
+
+    private static LocalDateTime parse(String value) {
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+}
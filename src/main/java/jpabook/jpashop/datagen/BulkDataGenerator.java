@@ -0,0 +1,245 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.domain.DeliveryStatsus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 대용량 테스트 데이터 생성기
+ *
+ * em.persist로 한 건씩 넣으면 엔티티마다 시퀀스 조회 + insert 왕복이 생겨서 수백만 건이면 몇 시간 걸림.
+ * 여기서는 시퀀스에서 id 구간을 한 번에 예약해두고 JDBC batch insert로 밀어넣음.
+ *
+ * 실제 운영 데이터처럼 쏠림(skew)을 줌
+ * - 앞쪽 소수의 상품(hot item)에 주문이 몰림
+ * - 앞쪽 소수의 회원이 주문 이력을 길게 가짐
+ *
+ * 엔티티를 거치지 않으니까 컬럼이 바뀌면 여기 insert 문도 같이 바꿔야 됨
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkDataGenerator {
+
+    private static final String SEQUENCE = "hibernate_sequence";
+    private static final String DELIVERY_SEQUENCE = "delivery_seq";
+    private static final String ORDERS_SEQUENCE = "orders_seq";
+    private static final String ORDER_ITEM_SEQUENCE = "order_item_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void generate(DataGeneratorProperties props) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(props.getSeed());
+
+        long memberStart = reserveIds(SEQUENCE, props.getMembers());
+        insertMembers(props, memberStart);
+
+        long itemStart = reserveIds(SEQUENCE, props.getItems());
+        insertItems(props, itemStart, random);
+
+        long categoryStart = reserveIds(SEQUENCE, props.getCategories());
+        insertCategories(props, categoryStart, itemStart, random);
+
+        insertOrders(props, memberStart, itemStart, random);
+
+        log.info("datagen finished: members={}, items={}, categories={}, orders={} ({} ms)",
+                props.getMembers(), props.getItems(), props.getCategories(), props.getOrders(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void insertMembers(DataGeneratorProperties props, long memberStart) {
+        batchInsert("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)",
+                props.getMembers(), props.getBatchSize(), (ps, i) -> {
+                    long id = memberStart + i;
+                    ps.setLong(1, id);
+                    ps.setString(2, "member" + id); // 회원 이름은 중복되면 안 됨
+                    ps.setString(3, "city" + (i % 100));
+                    ps.setString(4, "street" + i);
+                    ps.setString(5, String.valueOf(10000 + i % 90000));
+                });
+    }
+
+    private void insertItems(DataGeneratorProperties props, long itemStart, Random random) {
+        // 상품마다 값이 달라야 하니까 미리 뽑아둠 (상품 수는 보통 주문 수보다 훨씬 적음)
+        int[] prices = new int[props.getItems()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = (1 + random.nextInt(100)) * 1000;
+        }
+        batchInsert("insert into item (dtype, item_id, name, price, stock_quantity, author, isbn, artist, director, version)" +
+                        " values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                props.getItems(), props.getBatchSize(), (ps, i) -> {
+                    long id = itemStart + i;
+                    String dtype = i % 10 < 7 ? "B" : i % 10 < 9 ? "A" : "M"; // Book 70%, Album 20%, Movie 10%
+                    ps.setString(1, dtype);
+                    ps.setLong(2, id);
+                    ps.setString(3, "item" + id);
+                    ps.setInt(4, prices[i]);
+                    ps.setInt(5, 1_000_000);
+                    ps.setString(6, "B".equals(dtype) ? "author" + i : null);
+                    ps.setString(7, "B".equals(dtype) ? "isbn" + i : null);
+                    ps.setString(8, "A".equals(dtype) ? "artist" + i : null);
+                    ps.setString(9, "M".equals(dtype) ? "director" + i : null);
+                });
+    }
+
+    /**
+     * 앞쪽 sqrt(n)개는 최상위 카테고리, 나머지는 자기보다 앞에 있는 카테고리의 자식
+     * 상품은 각각 카테고리 하나에 연결
+     */
+    private void insertCategories(DataGeneratorProperties props, long categoryStart, long itemStart, Random random) {
+        int categories = props.getCategories();
+        if (categories == 0) {
+            return;
+        }
+        int roots = Math.max(1, (int) Math.sqrt(categories));
+        long[] parents = new long[categories];
+        String[] paths = new String[categories]; // 부모가 항상 앞에 있어서 순서대로 채우면 됨
+        for (int i = 0; i < categories; i++) {
+            if (i < roots) {
+                paths[i] = "/";
+            } else {
+                int parentIndex = random.nextInt(i);
+                parents[i] = categoryStart + parentIndex;
+                paths[i] = paths[parentIndex] + parents[i] + "/";
+            }
+        }
+        batchInsert("insert into category (category_id, name, parent_id, path) values (?, ?, ?, ?)",
+                categories, props.getBatchSize(), (ps, i) -> {
+                    ps.setLong(1, categoryStart + i);
+                    ps.setString(2, "category" + i);
+                    if (parents[i] == 0) {
+                        ps.setNull(3, java.sql.Types.BIGINT);
+                    } else {
+                        ps.setLong(3, parents[i]);
+                    }
+                    ps.setString(4, paths[i]);
+                });
+        batchInsert("insert into category_item (category_id, item_id) values (?, ?)",
+                props.getItems(), props.getBatchSize(), (ps, i) -> {
+                    ps.setLong(1, categoryStart + i % categories);
+                    ps.setLong(2, itemStart + i);
+                });
+    }
+
+    /**
+     * 주문, 배송, 주문상품을 batchSize 주문 단위로 끊어서 적재
+     * 한 번에 메모리에 올라가는 건 한 청크 분량뿐이라 주문이 수백만 건이어도 괜찮음
+     */
+    private void insertOrders(DataGeneratorProperties props, long memberStart, long itemStart, Random random) {
+        int[] prices = jdbcTemplate.queryForList(
+                        "select price from item where item_id >= ? and item_id < ? order by item_id",
+                        Integer.class, itemStart, itemStart + props.getItems())
+                .stream().mapToInt(Integer::intValue).toArray();
+        LocalDateTime now = LocalDateTime.now();
+        int itemRange = props.getMaxItemsPerOrder() - props.getMinItemsPerOrder() + 1;
+
+        for (int chunkStart = 0; chunkStart < props.getOrders(); chunkStart += props.getBatchSize()) {
+            int chunkSize = Math.min(props.getBatchSize(), props.getOrders() - chunkStart);
+            long deliveryStart = reserveIds(DELIVERY_SEQUENCE, chunkSize);
+            long orderStart = reserveIds(ORDERS_SEQUENCE, chunkSize);
+            long orderItemStart = reserveIds(ORDER_ITEM_SEQUENCE, (long) chunkSize * props.getMaxItemsPerOrder());
+
+            List<Object[]> orderRows = new ArrayList<>(chunkSize);
+            List<Object[]> orderItemRows = new ArrayList<>(chunkSize * props.getMaxItemsPerOrder());
+            long orderItemId = orderItemStart;
+            for (int i = 0; i < chunkSize; i++) {
+                long orderId = orderStart + i;
+                long memberId = memberStart + skewed(random, props.getMembers(), props.getMemberSkew());
+                LocalDateTime orderDate = now.minusSeconds(random.nextInt(Math.max(1, props.getOrderDays()) * 86_400));
+                OrderStatus status = random.nextDouble() < props.getCancelRatio() ? OrderStatus.CANCEL : OrderStatus.ORDER;
+
+                int lines = props.getMinItemsPerOrder() + random.nextInt(itemRange);
+                int totalPrice = 0;
+                for (int j = 0; j < lines; j++) {
+                    int itemIndex = skewed(random, props.getItems(), props.getItemSkew());
+                    int count = 1 + random.nextInt(3);
+                    totalPrice += prices[itemIndex] * count;
+                    orderItemRows.add(new Object[]{orderItemId++, itemStart + itemIndex, orderId, prices[itemIndex], count});
+                }
+                // Order.addOrderItem이 유지하는 합계를 여기서 직접 계산해서 넣음
+                orderRows.add(new Object[]{orderId, memberId, deliveryStart + i, Timestamp.valueOf(orderDate), status.name(),
+                        totalPrice, lines});
+            }
+
+            batchInsert("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)",
+                    chunkSize, chunkSize, (ps, i) -> {
+                        ps.setLong(1, deliveryStart + i);
+                        ps.setString(2, "city" + (i % 100));
+                        ps.setString(3, "street" + i);
+                        ps.setString(4, String.valueOf(10000 + i));
+                        ps.setString(5, DeliveryStatsus.READY.name());
+                    });
+            batchInsert("insert into orders (order_id, member_id, delivery_id, order_date, status, total_price, line_count)" +
+                            " values (?, ?, ?, ?, ?, ?, ?)",
+                    orderRows);
+            batchInsert("insert into order_item (order_item_id, item_id, order_id, order_price, count) values (?, ?, ?, ?, ?)",
+                    orderItemRows);
+        }
+    }
+
+    /**
+     * 0 ~ n-1 사이 인덱스를 앞쪽으로 쏠리게 뽑음 (skew가 1이면 균등)
+     */
+    private static int skewed(Random random, int n, double skew) {
+        return Math.min(n - 1, (int) (n * Math.pow(random.nextDouble(), skew)));
+    }
+
+    /**
+     * 시퀀스에서 count개의 id 구간을 예약하고 시작 id를 반환
+     * 시퀀스를 구간 뒤로 옮겨놓으니까 이후에 JPA가 만드는 id와 겹치지 않음
+     * (allocationSize > 1 인 pooled 시퀀스도 고려해서 increment만큼 더 띄움)
+     */
+    long reserveIds(String sequence, long count) {
+        Long current = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = ?",
+                Long.class, sequence.toUpperCase());
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (current + count + increment));
+        return current + 1;
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        batchInsert(sql, rows.size(), rows.size(), (ps, i) -> {
+            Object[] row = rows.get(i);
+            for (int c = 0; c < row.length; c++) {
+                ps.setObject(c + 1, row[c]);
+            }
+        });
+    }
+
+    private void batchInsert(String sql, int total, int batchSize, RowSetter setter) {
+        for (int from = 0; from < total; from += batchSize) {
+            int offset = from;
+            int size = Math.min(batchSize, total - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setter.setValues(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.datagen;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 대용량 테스트 데이터 설정 (application.yml의 jpashop.datagen.*)
+ * 벤치마크나 테스트에서는 new로 만들어서 값만 바꿔서 쓰면 됨
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.datagen")
+public class DataGeneratorProperties {
+
+    private int members = 10_000;
+    private int items = 1_000;
+    private int categories = 50;
+    private int orders = 100_000;
+    private int minItemsPerOrder = 1;
+    private int maxItemsPerOrder = 5;
+
+    /**
+     * 쏠림 정도. 1이면 균등, 클수록 앞쪽 소수의 상품/회원에 주문이 몰림
+     * (3이면 상위 10% 상품이 주문의 절반 가까이를 차지)
+     */
+    private double itemSkew = 3.0;
+    private double memberSkew = 2.0;
+
+    private double cancelRatio = 0.1;   // 취소 주문 비율
+    private int orderDays = 365;        // 주문일을 최근 며칠 사이에 흩뿌릴지
+    private int batchSize = 1_000;      // JDBC batch 크기
+    private long seed = 42L;            // 같은 seed면 같은 데이터
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.Service.CategoryService;
+import jpabook.jpashop.Service.OrderSummaryService;
+import jpabook.jpashop.Service.ResourceVersionService;
+import jpabook.jpashop.Service.SalesService;
+import jpabook.jpashop.Service.VersionedResource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * datagen 프로필로 띄우면 시작할 때 대용량 데이터를 적재
+ * ex) --spring.profiles.active=datagen --jpashop.datagen.orders=1000000
+ */
+@Component
+@Profile("datagen")
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+@RequiredArgsConstructor
+public class DataGeneratorRunner implements ApplicationRunner {
+
+    private final BulkDataGenerator bulkDataGenerator;
+    private final DataGeneratorProperties properties;
+    private final CategoryService categoryService;
+    private final OrderSummaryService orderSummaryService;
+    private final SalesService salesService;
+    private final ResourceVersionService resourceVersionService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        bulkDataGenerator.generate(properties);
+        categoryService.invalidate(); // 카테고리를 jdbc로 넣었으니 트리 스냅샷을 다시 만들게 함
+        orderSummaryService.rebuild(); // 주문도 jdbc로 넣었으니 읽기 모델을 채움
+        salesService.rebuild(); // 매출 집계도 같이
+        resourceVersionService.bump(VersionedResource.values()); // 전에 받은 ETag로 304가 나가지 않게
+    }
+}
@@ -1,8 +1,11 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,6 +14,11 @@ import java.util.List;
 import static javax.persistence.FetchType.*;
 
 @Entity
+@Table(indexes = {
+        // 하위 트리 조회(path like '/1/5/%')용 인덱스
+        @Index(name = "idx_category_path", columnList = "path")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 public class Category {
     @Id @GeneratedValue
@@ -19,6 +27,14 @@ public class Category {
 
     private String name;
 
+    /**
+     * 조상 id 경로 (materialized path). 최상위는 "/", 1번의 자식이면 "/1/", 그 자식이면 "/1/5/"
+     * 하위 트리 전체를 path like '{getSubtreePrefix()}%' 한 번으로 찾을 수 있음
+     */
+    @Setter(AccessLevel.NONE)
+    private String path;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(name = "category_item",
         joinColumns = @JoinColumn(name = "category_id"),
@@ -30,6 +46,7 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
@@ -37,5 +54,43 @@ public class Category {
     public void addChildCategory(Category child) {
         this.child.add(child);
         child.setParent(this);
+        if (id != null) {
+            child.updatePath();
+        }
+    }
+
+    /**
+     * 부모를 옮김. 자손들의 path는 CategoryRepository.updateSubtreePath로 같이 바꿔야 됨
+     */
+    public void changeParent(Category newParent) {
+        if (parent != null) {
+            parent.getChild().remove(this);
+        }
+        if (newParent == null) {
+            parent = null;
+            updatePath();
+        } else {
+            newParent.addChildCategory(this);
+        }
+    }
+
+    /**
+     * 이 카테고리 아래(자손) path가 시작하는 값
+     */
+    public String getSubtreePrefix() {
+        return path + id + "/";
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updatePath() {
+        if (parent == null) {
+            path = "/";
+            return;
+        }
+        if (parent.getId() == null) {
+            throw new IllegalStateException("상위 카테고리를 먼저 저장해야 합니다.");
+        }
+        path = parent.getSubtreePrefix();
     }
 }
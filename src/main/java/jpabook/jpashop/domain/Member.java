@@ -3,6 +3,8 @@ package jpabook.jpashop.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -10,6 +12,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = {
+        // 중복 가입을 db에서 최종적으로 막음 (동시에 가입해도 한 명만 insert 됨)
+        @UniqueConstraint(name = "uk_member_name", columnNames = "name")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 주문할 때마다 조회, 수정은 드묾
 @Getter @Setter
 public class Member {
 
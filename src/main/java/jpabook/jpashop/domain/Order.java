@@ -15,13 +15,20 @@ import java.util.List;
 import static javax.persistence.FetchType.LAZY;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 키셋 페이징(orderDate, order_id 순서)용 인덱스
+        @Index(name = "idx_orders_order_date", columnList = "order_date, order_id"),
+        // 회원 조인 + 주문 상태 검색용
+        @Index(name = "idx_orders_member_status", columnList = "member_id, status")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
+    // allocationSize만큼 id를 한 번에 받아둠. insert마다 시퀀스를 조회하지 않아야 batch insert가 됨
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq_generator")
+    @SequenceGenerator(name = "orders_seq_generator", sequenceName = "orders_seq", allocationSize = 50)
     @Column(name = "order_id")
     private Long id;
 
@@ -37,11 +44,25 @@ public class Order {
     @JoinColumn(name = "delivery_id")
     private Delivery delivery;
 
+    @Column(name = "order_date")
     private LocalDateTime orderDate;
 
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문 상태 [ORDER, CANCEL]
 
+    /**
+     * 주문 금액 합계 / 주문상품 줄 수
+     * 목록에서 합계를 보여줄 때 orderItems를 초기화하지 않도록 저장해둠. addOrderItem으로만 바뀜
+     * 취소해도 주문 내역은 그대로라 값은 유지됨
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "total_price")
+    private int totalPrice;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "line_count")
+    private int lineCount;
+
     //==연관관계 메서드==//
     public void setMember(Member member) {
         this.member = member;
@@ -51,6 +72,8 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
+        lineCount++;
     }
 
     public void setDelivery(Delivery delivery) {
@@ -77,27 +100,23 @@ public class Order {
      * 주문 취소
      */
     public void cancel() {
-        if (delivery.getStatus() == DeliveryStatsus.COMP) {
-            throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
-        }
-        this.setStatus(OrderStatus.CANCEL);
+        markCanceled();
         for (OrderItem orderItem : orderItems) {
             orderItem.cancel(); // 재고 수정
         }
     }
 
-    //==조회 로직==//
-
     /**
-     * 전체 주문 가격 조회
+     * 상태만 취소로 바꿈. 재고 원복은 호출하는 쪽(StockService)에서 update 쿼리로 처리할 때 사용
      */
-    public int getTotalPrice() {
-        int totalPrice = 0;
-        for (OrderItem orderItem : orderItems) {
-            totalPrice += orderItem.getTotalPrice();
+    public void markCanceled() {
+        if (this.status == OrderStatus.CANCEL) {
+            throw new IllegalStateException("이미 취소된 주문입니다.");
         }
-        // 위에 식이 이거임 return orderItems.stream().mapToInt(OrderItem::getTotalprice).sum();
-        return totalPrice;
+        if (delivery.getStatus() == DeliveryStatsus.COMP) {
+            throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
+        }
+        this.setStatus(OrderStatus.CANCEL);
     }
 
 }
@@ -0,0 +1,70 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회용 읽기 모델 (order + member + delivery + order_item 합계를 한 row에 펼쳐둠)
+ *
+ * 목록 API가 매번 join 하지 않고 이 테이블만 읽음.
+ * 주문/취소/회원 이름 변경 트랜잭션 안에서 같이 갱신되니까 커밋된 시점에는 원본과 항상 같음.
+ * jdbc로 직접 넣은 데이터(datagen)는 OrderSummaryService.rebuild로 다시 채움
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_member", columnList = "member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId; // orders.order_id 그대로 사용
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Embedded
+    private Address address; // 배송지
+
+    @Column(name = "item_count")
+    private int itemCount; // 주문 수량 합계
+
+    @Column(name = "total_price")
+    private int totalPrice;
+
+    //==생성 메서드==//
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.memberId = order.getMember().getId();
+        summary.memberName = order.getMember().getName();
+        summary.orderDate = order.getOrderDate();
+        summary.status = order.getStatus();
+        summary.address = order.getDelivery().getAddress();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            summary.itemCount += orderItem.getCount();
+        }
+        summary.totalPrice = order.getTotalPrice();
+        return summary;
+    }
+
+    //==비즈니스 로직==//
+    public void cancel() {
+        this.status = OrderStatus.CANCEL;
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 목록 API ETag용 자원(aggregate)별 버전
+ * 인스턴스가 여러 대여도 같은 값을 보도록 db에 둠. 갱신은 ResourceVersionService가 커밋 후에 올림
+ */
+@Entity
+@Table(name = "resource_version")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ResourceVersion {
+
+    @Id
+    private String name; // VersionedResource 이름
+
+    private long version;
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 상품 x 주문일 x 주문상태별 매출 집계 (rollup)
+ *
+ * 주문/취소가 커밋되면 SalesService가 merge로 증감만 반영함 (엔티티로 읽고 쓰지 않음).
+ * 기간 조회는 주문 row 대신 이 테이블의 (일수 x 상품수) row만 읽음
+ * 주문일은 주문한 날 기준. 나중에 취소돼도 원래 주문일의 ORDER에서 빼고 CANCEL에 더함
+ */
+@Entity
+@Table(name = "sales_item_daily", indexes = {
+        @Index(name = "idx_sales_item_daily_item", columnList = "item_id, sales_date")
+})
+@IdClass(SalesItemDaily.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SalesItemDaily {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private String dtype; // 상품 타입 (B, A, M)
+
+    private long revenue; // sum(orderPrice * count)
+    private long units;   // sum(count)
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Long itemId;
+        private OrderStatus status;
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 상품 타입(dtype) x 주문일 x 주문상태별 매출 집계 (rollup)
+ * 일별/타입별 조회는 상품 수와 상관없이 하루에 타입 수만큼의 row만 읽으면 됨
+ */
+@Entity
+@Table(name = "sales_type_daily")
+@IdClass(SalesTypeDaily.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SalesTypeDaily {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    private String dtype;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private long revenue;
+    private long units;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private String dtype;
+        private OrderStatus status;
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * hot item 재고 변경 기록 (write-behind 저널)
+ * 주문 트랜잭션 안에서 같이 insert 되니까 주문이 커밋되면 재고 변경도 반드시 남음.
+ * item row를 직접 update 하지 않으니까 같은 상품 주문끼리 row 락을 두고 줄 서지 않음.
+ * HotStockLedger가 주기적으로 모아서 item.stock_quantity에 반영하고 지움
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_ledger_seq_generator")
+    @SequenceGenerator(name = "stock_ledger_seq_generator", sequenceName = "stock_ledger_seq", allocationSize = 50)
+    @Column(name = "stock_ledger_entry_id")
+    private Long id;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int delta; // 차감이면 음수, 원복이면 양수
+
+    public StockLedgerEntry(Long itemId, int delta) {
+        this.itemId = itemId;
+        this.delta = delta;
+    }
+}
@@ -4,7 +4,8 @@ import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughtStockException;
 import lombok.Getter;
 import lombok.Setter;
-import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import java.util.List;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 하위 타입(Book/Album/Movie)도 같은 영역에 캐시됨
 @Getter @Setter
 public class Item {
 
@@ -24,6 +26,10 @@ public class Item {
     private int price;
     private int stockQuantity;
 
+    @Version
+    private Long version; // 재고 동시 수정 감지용
+
+    // 반대편(mappedBy)이라 Category.items가 바뀌어도 이 컬렉션 캐시는 무효화되지 않음 -> 캐시 안 함
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
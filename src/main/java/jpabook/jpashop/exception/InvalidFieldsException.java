@@ -0,0 +1,14 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ?fields= 에 없는 필드를 요청한 경우 (400)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFieldsException extends IllegalArgumentException {
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package jpabook.jpashop.exception;
+
+/**
+ * 같은 상품 재고를 동시에 바꾸려는 요청이 몰려서 재시도 횟수 안에 반영하지 못한 경우
+ */
+public class StockConflictException extends RuntimeException {
+    public StockConflictException() {
+        super();
+    }
+
+    public StockConflictException(String message) {
+        super(message);
+    }
+
+    public StockConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public StockConflictException(Throwable cause) {
+        super(cause);
+    }
+
+}
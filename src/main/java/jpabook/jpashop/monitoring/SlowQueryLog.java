@@ -0,0 +1,87 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 느린 SQL 샘플 (/actuator/slowqueries)
+ * 최근 slow-query-samples개만 남기고 오래된 건 버림. 느린 쿼리는 드물어서 synchronized로 충분함
+ *
+ * DataSource(p6spy 리스너)가 이 빈을 쓰니까 MeterRegistry를 주입받으면 순환 참조가 생김
+ * -> MeterBinder로 등록해서 레지스트리가 만들어질 때 카운터를 붙이게 함
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryLog implements MeterBinder {
+
+    private final long thresholdNanos;
+    private final int capacity;
+    private final LongAdder slowQueryCount = new LongAdder();
+    private final Deque<SlowQuery> samples = new ArrayDeque<>();
+
+    public SlowQueryLog(@Value("${jpashop.sql-stats.slow-query-ms:200}") long thresholdMillis,
+                        @Value("${jpashop.sql-stats.slow-query-samples:100}") int capacity) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jpashop.sql.slow", slowQueryCount, LongAdder::sum)
+                .description("statements slower than jpashop.sql-stats.slow-query-ms")
+                .register(registry);
+    }
+
+    void record(String sql, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        slowQueryCount.increment();
+        SlowQuery slowQuery = new SlowQuery(LocalDateTime.now(), elapsedNanos / 1_000_000,
+                Thread.currentThread().getName(), sql);
+        synchronized (samples) {
+            if (samples.size() == capacity) {
+                samples.removeLast();
+            }
+            samples.addFirst(slowQuery);
+        }
+    }
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    @DeleteOperation
+    public void clear() {
+        synchronized (samples) {
+            samples.clear();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SlowQuery {
+        private LocalDateTime executedAt;
+        private long elapsedMs;
+        private String thread;
+        private String sql;
+    }
+}
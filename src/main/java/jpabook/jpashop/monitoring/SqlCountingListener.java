@@ -0,0 +1,38 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy가 감싼 JDBC 호출마다 현재 요청의 SqlStatistics에 기록 + 느린 SQL 샘플링
+ * JdbcEventListener 빈은 p6spy-spring-boot-starter가 자동으로 등록해줌
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlCountingListener extends SimpleJdbcEventListener {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        slowQueryLog.record(statementInformation.getSql(), timeElapsedNanos);
+        SqlStatistics statistics = SqlStatisticsHolder.current();
+        if (statistics != null) {
+            statistics.recordStatement(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        SqlStatistics statistics = SqlStatisticsHolder.current();
+        if (statistics != null && hasNext) {
+            statistics.recordRow(timeElapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 하나에서 실행된 SQL 통계
+ * 실행 수, 읽은 row 수, JDBC 시간, 같은 모양(파라미터만 다른) SQL이 몇 번 나갔는지
+ * 요청이 작업을 다른 스레드로 나눠 보내면(ChunkedInLoader) 그 스레드들도 같은 통계에 기록하니까 메서드를 동기화함
+ *
+ * 같은 모양 SQL이 여러 번 나가면 N+1을 의심해야 됨
+ * ex) select ... from member where member_id=? 가 주문 수만큼
+ */
+public class SqlStatistics {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    synchronized void recordStatement(String sql, long elapsedNanos) {
+        statements++;
+        jdbcNanos += Math.max(0, elapsedNanos);
+        if (sql != null) {
+            shapes.merge(shape(sql), 1, Integer::sum);
+        }
+    }
+
+    synchronized void recordRow(long elapsedNanos) {
+        rows++;
+        jdbcNanos += Math.max(0, elapsedNanos);
+    }
+
+    public synchronized int getStatements() {
+        return statements;
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+
+    /**
+     * 가장 많이 반복된 SQL 모양의 실행 횟수
+     */
+    public synchronized int getMaxRepeat() {
+        int max = 0;
+        for (int count : shapes.values()) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    /**
+     * threshold번 이상 반복된 SQL 모양 -> 실행 횟수
+     */
+    public synchronized Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new HashMap<>();
+        shapes.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * 값만 다른 SQL을 같은 모양으로 봄 (리터럴 -> ?, in (?, ?, ?) -> in (?...))
+     */
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return shape.replaceAll("\\s+", " ").trim();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "statements=" + statements + ", rows=" + rows + ", jdbcMs=" + getJdbcMillis()
+                + ", maxRepeat=" + getMaxRepeat();
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청마다 SQL 통계를 시작/정리하고, 같은 모양 SQL이 threshold번 이상 나가면 N+1 경고 로그를 남김
+ * 응답 헤더는 SqlStatisticsHeaderAdvice에서 붙임 (여기서는 응답이 이미 나간 뒤라 헤더를 못 붙임)
+ */
+@Slf4j
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private final int nPlusOneThreshold;
+    private final DistributionSummary statementsPerRequest;
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry,
+                               @Value("${jpashop.sql-stats.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.statementsPerRequest = DistributionSummary.builder("jpashop.sql.statements.per.request")
+                .description("SQL statements executed by one HTTP request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatisticsHolder.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatisticsHolder.clear();
+            report(request, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatistics statistics) {
+        if (statistics.getStatements() == 0) {
+            return;
+        }
+        statementsPerRequest.record(statistics.getStatements());
+        Map<String, Integer> repeated = statistics.getRepeatedStatements(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            log.warn("N+1 suspected: {} {} ({}) repeated={}",
+                    request.getMethod(), request.getRequestURI(), statistics, repeated);
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} ({})", request.getMethod(), request.getRequestURI(), statistics);
+        }
+    }
+}
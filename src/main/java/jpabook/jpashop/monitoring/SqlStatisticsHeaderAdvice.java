@@ -0,0 +1,41 @@
+package jpabook.jpashop.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * API 응답 헤더에 지금까지 실행된 SQL 통계를 붙임
+ * OSIV가 꺼져 있어서 응답을 쓰는 중에 지연 로딩으로 나가는 SQL은 없음 -> 바디를 쓰기 직전 값이 요청 전체 값
+ */
+@RestControllerAdvice
+public class SqlStatisticsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SQL_COUNT = "X-Sql-Count";
+    public static final String SQL_ROWS = "X-Sql-Rows";
+    public static final String SQL_TIME_MS = "X-Sql-Time-Ms";
+    public static final String SQL_MAX_REPEAT = "X-Sql-Max-Repeat";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatisticsHolder.current();
+        if (statistics != null) {
+            response.getHeaders().set(SQL_COUNT, String.valueOf(statistics.getStatements()));
+            response.getHeaders().set(SQL_ROWS, String.valueOf(statistics.getRows()));
+            response.getHeaders().set(SQL_TIME_MS, String.valueOf(statistics.getJdbcMillis()));
+            response.getHeaders().set(SQL_MAX_REPEAT, String.valueOf(statistics.getMaxRepeat()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.monitoring;
+
+/**
+ * 현재 스레드의 SqlStatistics
+ * start 하지 않은 스레드(스케줄러, 배치 등)에서 나가는 SQL은 세지 않음
+ */
+public class SqlStatisticsHolder {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private SqlStatisticsHolder() {
+    }
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 다른 스레드에서 시작한 통계를 현재 스레드에도 연결 (작업을 넘겨받은 worker 스레드에서 호출)
+     * 끝나면 반환값으로 다시 bind해서 원래대로 되돌림
+     *
+     * @return 원래 연결돼 있던 통계 (없으면 null)
+     */
+    public static SqlStatistics bind(SqlStatistics statistics) {
+        SqlStatistics previous = CURRENT.get();
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+        return previous;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
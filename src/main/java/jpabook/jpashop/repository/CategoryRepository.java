@@ -0,0 +1,63 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 트리 스냅샷용 [id, name, parentId, path]
+     * 엔티티 대신 값만 가져와서 부모/자식 지연 로딩이 안 일어남
+     */
+    public List<Object[]> findAllForTree() {
+        return em.createQuery("select c.id, c.name, p.id, c.path from Category c" +
+                        " left join c.parent p" +
+                        " order by c.path, c.id", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리 하나와 그 하위 트리 전체에 속한 상품을 쿼리 한 번으로 조회
+     * 단계마다 child를 타고 내려가면 노드 수만큼 쿼리가 나가는데, path 접두사 검색이라 path 인덱스 한 번이면 됨
+     */
+    public List<Item> findItemsInSubtree(Long categoryId, String subtreePrefix) {
+        return em.createQuery("select i from Item i" +
+                        " where i.id in (select ci.id from Category c join c.items ci" +
+                        "  where c.id = :categoryId or c.path like :prefix)" +
+                        " order by i.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .setParameter("prefix", subtreePrefix + "%")
+                .getResultList();
+    }
+
+    /**
+     * 카테고리를 옮겼을 때 자손들의 path 앞부분을 한꺼번에 바꿈
+     * ex) "/1/5/" 아래를 "/2/" 아래로 옮기면 "/1/5/9/" -> "/2/5/9/"
+     */
+    public int updateSubtreePath(String oldPrefix, String newPrefix) {
+        return em.createQuery("update Category c" +
+                        " set c.path = concat(:newPrefix, substring(c.path, :cut))" +
+                        " where c.path like :oldPrefixLike")
+                .setParameter("newPrefix", newPrefix)
+                .setParameter("cut", oldPrefix.length() + 1)
+                .setParameter("oldPrefixLike", oldPrefix + "%")
+                .executeUpdate();
+    }
+}
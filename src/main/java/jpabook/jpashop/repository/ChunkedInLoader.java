@@ -0,0 +1,130 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.monitoring.SqlStatistics;
+import jpabook.jpashop.monitoring.SqlStatisticsHolder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 큰 id 목록을 in 쿼리로 읽을 때 chunk-size개씩 잘라서 읽음
+ *
+ * - id 5만 개를 in 하나에 넣으면 sql이 수십만 자가 되고, id 개수마다 다른 sql이라 plan cache에도 못 남음
+ *   chunk 크기를 고정하고 마지막 chunk는 마지막 id를 반복해서 채움 -> sql 모양이 항상 하나라 plan 재사용
+ *   (in에 같은 값이 여러 번 있어도 결과는 같음)
+ * - 트랜잭션 밖이면 chunk들을 별도 EntityManager(= 별도 커넥션)로 동시에 읽음. 스레드 수(threads)만큼만 커넥션을 씀
+ *   큐가 차면 호출한 스레드가 직접 실행 (CallerRunsPolicy)
+ * - 트랜잭션 안이면 다른 커넥션에서는 아직 커밋 안 된 데이터가 안 보이니까 넘겨받은 EntityManager로 순서대로 읽음
+ * - worker 스레드에도 호출한 스레드의 SqlStatistics를 연결해서 요청별 SQL 통계(X-Sql-* 헤더)에 같이 잡히게 함
+ *
+ * 결과는 chunk 순서대로 이어 붙임. DTO 조회용 (엔티티를 읽으면 호출한 쪽 영속성 컨텍스트에 없는 준영속 엔티티가 나옴)
+ */
+@Component
+public class ChunkedInLoader implements DisposableBean {
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+    private final ThreadPoolExecutor executor;
+
+    public ChunkedInLoader(EntityManagerFactory emf,
+                           @Value("${jpashop.in-loader.chunk-size:500}") int chunkSize,
+                           @Value("${jpashop.in-loader.threads:4}") int threads) {
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                r -> {
+                    Thread thread = new Thread(r, "in-loader-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @param em    트랜잭션 안이거나 chunk가 하나뿐일 때 쓸 EntityManager
+     * @param query (EntityManager, chunk) -> 결과. ex) where oi.order.id in :orderIds
+     */
+    public <T> List<T> load(EntityManager em, List<Long> ids, BiFunction<EntityManager, List<Long>, List<T>> query) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<List<Long>> chunks = chunks(ids, chunkSize);
+        if (chunks.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            List<T> result = new ArrayList<>();
+            for (List<Long> chunk : chunks) {
+                result.addAll(query.apply(em, chunk));
+            }
+            return result;
+        }
+
+        SqlStatistics statistics = SqlStatisticsHolder.current();
+        List<Future<List<T>>> futures = new ArrayList<>(chunks.size());
+        for (List<Long> chunk : chunks) {
+            futures.add(executor.submit(() -> {
+                // CallerRunsPolicy면 호출한 스레드에서 돌 수도 있으니 원래 값으로 되돌림
+                SqlStatistics previous = SqlStatisticsHolder.bind(statistics);
+                EntityManager chunkEm = emf.createEntityManager();
+                try {
+                    return query.apply(chunkEm, chunk);
+                } finally {
+                    chunkEm.close();
+                    SqlStatisticsHolder.bind(previous);
+                }
+            }));
+        }
+        List<T> result = new ArrayList<>();
+        try {
+            for (Future<List<T>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("in 조회 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("in 조회 실패", e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * size개씩 자르고 마지막 chunk는 마지막 id로 채움
+     */
+    static List<List<Long>> chunks(List<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>((ids.size() + size - 1) / size);
+        for (int from = 0; from < ids.size(); from += size) {
+            List<Long> chunk = new ArrayList<>(size);
+            chunk.addAll(ids.subList(from, Math.min(from + size, ids.size())));
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < size) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,191 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.InvalidFieldsException;
+import lombok.Getter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ?fields=orderId,orderStatus 처럼 필요한 필드만 고르면 그 필드만 select 하는 jpql을 만들어 줌
+ *
+ * - 필드마다 select할 경로와 필요한 join을 등록해두고, 고른 필드가 쓰는 join만 붙임
+ *   (회원 이름을 안 고르면 member join 자체가 없음)
+ * - 같은 필드 조합은 같은 Plan(같은 jpql 문자열)을 씀. 조합은 등록한 필드 수로 제한되니까 map에 계속 들고 있어도 됨
+ *   jpql 문자열이 같으니 hibernate 쪽 query plan cache도 그대로 재사용됨
+ * - 결과는 고른 필드만 들어간 Map (json으로 내보내면 안 고른 필드는 키 자체가 없음)
+ */
+public class FieldProjection {
+
+    private final String from;
+    private final String orderBy;
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param from    ex) "Order o"
+     * @param orderBy ex) "o.id"
+     */
+    public FieldProjection(String from, String orderBy) {
+        this.from = from;
+        this.orderBy = orderBy;
+    }
+
+    /**
+     * 경로 하나를 그대로 내보내는 필드
+     *
+     * @param join 이 필드가 필요로 하는 join (없으면 null). ex) "join o.member m"
+     */
+    public FieldProjection field(String name, String join, String path) {
+        return field(name, join, values -> values[0], path);
+    }
+
+    /**
+     * 여러 경로를 읽어서 값 하나로 합치는 필드 (ex. city, street, zipcode -> Address)
+     */
+    public FieldProjection field(String name, String join, Function<Object[], Object> combiner, String... paths) {
+        fields.put(name, new Field(name, join, combiner, paths));
+        return this;
+    }
+
+    /**
+     * select 하지 않고 리포지토리가 따로 채우는 필드 (ex. 주문의 orderItems). toMap 결과에는 안 들어감
+     */
+    public FieldProjection virtualField(String name) {
+        fields.put(name, new Field(name, null, null, new String[0]));
+        return this;
+    }
+
+    public Set<String> getFieldNames() {
+        return Collections.unmodifiableSet(fields.keySet());
+    }
+
+    /**
+     * "a,b,c" -> Plan. 비어 있으면 전체 필드
+     * 모르는 필드가 있으면 InvalidFieldsException (400)
+     */
+    public Plan compile(String fieldsParam) {
+        Set<String> requested = parse(fieldsParam);
+        String key = fields.keySet().stream()
+                .filter(requested::contains)
+                .collect(Collectors.joining(","));
+        return plans.computeIfAbsent(key, k -> new Plan(k, selected(requested)));
+    }
+
+    private Set<String> parse(String fieldsParam) {
+        if (fieldsParam == null || fieldsParam.trim().isEmpty()) {
+            return fields.keySet();
+        }
+        Set<String> requested = new HashSet<>();
+        for (String name : fieldsParam.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!fields.containsKey(trimmed)) {
+                throw new InvalidFieldsException("알 수 없는 필드입니다. field=" + trimmed + ", 가능한 필드=" + fields.keySet());
+            }
+            requested.add(trimmed);
+        }
+        if (requested.isEmpty()) {
+            return fields.keySet();
+        }
+        return requested;
+    }
+
+    private List<Field> selected(Set<String> requested) {
+        return fields.values().stream()
+                .filter(f -> requested.contains(f.name))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 필드 조합 하나에 대한 jpql과 row -> Map 변환
+     */
+    public class Plan {
+        @Getter
+        private final String key; // 정규화한 필드 목록 (선언 순서). 캐시 key 등에 사용
+        @Getter
+        private final String jpql;
+        private final List<Field> selected;
+        private final int columns; // 0이면 virtual 필드만 고른 것. 리포지토리가 select할 필드를 더 붙여서 다시 compile 해야 함
+
+        private Plan(String key, List<Field> selected) {
+            this.key = key;
+            this.selected = selected;
+
+            StringBuilder select = new StringBuilder("select ");
+            Set<String> joins = new LinkedHashSet<>();
+            int column = 0;
+            for (Field field : selected) {
+                for (String path : field.paths) {
+                    if (column > 0) {
+                        select.append(", ");
+                    }
+                    select.append(path).append(" as c").append(column++);
+                }
+                if (field.join != null) {
+                    joins.add(field.join);
+                }
+            }
+            this.columns = column;
+            StringBuilder jpql = select.append(" from ").append(from);
+            joins.forEach(join -> jpql.append(' ').append(join));
+            this.jpql = jpql.append(" order by ").append(orderBy).toString();
+        }
+
+        public boolean has(String fieldName) {
+            return selected.stream().anyMatch(f -> f.name.equals(fieldName));
+        }
+
+        public TypedQuery<Tuple> createQuery(EntityManager em) {
+            if (columns == 0) {
+                throw new InvalidFieldsException("select할 필드가 없습니다. fields=" + key);
+            }
+            return em.createQuery(jpql, Tuple.class);
+        }
+
+        public Map<String, Object> toMap(Tuple row) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            int column = 0;
+            for (Field field : selected) {
+                if (field.paths.length == 0) {
+                    continue; // virtual
+                }
+                Object[] values = new Object[field.paths.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = row.get(column++);
+                }
+                result.put(field.name, field.combiner.apply(values));
+            }
+            return result;
+        }
+
+        public List<Map<String, Object>> toMaps(List<Tuple> rows) {
+            List<Map<String, Object>> result = new ArrayList<>(rows.size());
+            for (Tuple row : rows) {
+                result.add(toMap(row));
+            }
+            return result;
+        }
+    }
+
+    private static class Field {
+        private final String name;
+        private final String join;
+        private final Function<Object[], Object> combiner;
+        private final String[] paths;
+
+        Field(String name, String join, Function<Object[], Object> combiner, String[] paths) {
+            this.name = name;
+            this.join = join;
+            this.combiner = combiner;
+            this.paths = paths;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package jpabook.jpashop.repository;
+
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 컬렉션 fetch join + 페이징을 두 번에 나눠서 함
+ *
+ * 컬렉션을 fetch join한 쿼리에 setFirstResult/setMaxResults를 걸면 row가 주문상품 수만큼 늘어나 있어서
+ * 하이버네이트가 db에 limit을 안 걸고 전부 메모리로 읽은 다음 자바에서 자름 (HHH000104 경고)
+ * 주문이 2개면 티가 안 나지만 몇백만 건이면 전체를 메모리에 올리다가 터짐
+ *
+ * 1. 루트 엔티티 id만 db에서 limit으로 한 페이지 조회 (정렬은 id 쿼리의 order by)
+ * 2. 그 id들만 in으로 컬렉션까지 fetch join
+ * 3. 2번 결과는 순서가 보장 안 되니까 1번 id 순서대로 다시 줄 세움
+ */
+public final class IdPaging {
+
+    private IdPaging() {
+    }
+
+    /**
+     * @param idQuery ex) "select o.id from Order o order by o.id". 반드시 order by가 있어야 페이지가 고정됨
+     * @param fetcher id 목록으로 fetch join 조회 (where o.id in :ids)
+     * @param idOf    조회한 엔티티의 id
+     */
+    public static <T, ID> List<T> fetch(TypedQuery<ID> idQuery, int offset, int limit,
+                                        Function<List<ID>, List<T>> fetcher, Function<T, ID> idOf) {
+        List<ID> ids = idQuery
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return inOrderOf(ids, fetcher.apply(ids), idOf);
+    }
+
+    static <T, ID> List<T> inOrderOf(List<ID> ids, List<T> fetched, Function<T, ID> idOf) {
+        Map<ID, T> byId = new HashMap<>(fetched.size() * 2);
+        for (T entity : fetched) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) { // id 조회와 fetch 사이에 지워진 건 빠짐
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+}
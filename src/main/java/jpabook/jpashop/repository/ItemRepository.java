@@ -2,9 +2,16 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,10 +38,110 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 상품 목록은 쿼리 캐시 사용 (id 목록만 캐시되고 엔티티는 Item 캐시에서 꺼냄)
+     * 상품이 추가/수정되면 item 테이블 변경 시각이 바뀌어서 자동으로 무효화됨
+     */
     public List<Item> findAll() {
-        return em.createQuery("select i from Item i", Item.class)
+        return ReadOnlyQuery.apply(em.createQuery("select i from Item i", Item.class))
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_REGION, "query.itemList")
                 .getResultList();
     }
 
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 재고 차감을 update 한 번으로 처리 (엔티티 조회 X, 변경감지 X)
+     * 재고가 모자라면 where 조건에 안 걸려서 false
+     * 벌크 연산이라 영속성 컨텍스트에 이미 올라와 있는 Item에는 반영이 안 됨
+     */
+    public boolean decreaseStock(Long itemId, int quantity) {
+        return executeStockUpdate(itemId, em.createNativeQuery("update item" +
+                        " set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                        " where item_id = :id and stock_quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)) == 1;
+    }
+
+    public void increaseStock(Long itemId, int quantity) {
+        executeStockUpdate(itemId, em.createNativeQuery("update item" +
+                        " set stock_quantity = stock_quantity + :quantity, version = version + 1" +
+                        " where item_id = :id")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId));
+    }
+
+    /**
+     * 엔티티를 읽지 않고 프록시만 (주문상품의 FK용)
+     */
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    /**
+     * 가격만 조회. 상품이 없으면 IllegalArgumentException
+     */
+    public int findPrice(Long itemId) {
+        List<Integer> prices = em.createQuery("select i.price from Item i where i.id = :id", Integer.class)
+                .setParameter("id", itemId)
+                .getResultList();
+        if (prices.isEmpty()) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return prices.get(0);
+    }
+
+    /**
+     * [재고, 버전]을 db에서 바로 읽음 (영속성 컨텍스트에 있는 값 말고)
+     */
+    public Object[] findStockAndVersion(Long itemId) {
+        return em.createQuery("select i.stockQuantity, i.version from Item i where i.id = :id", Object[].class)
+                .setParameter("id", itemId)
+                .getSingleResult();
+    }
+
+    /**
+     * 읽어온 version이 그대로일 때만 재고를 바꿈. 그 사이 누가 바꿨으면 false
+     */
+    public boolean updateStockIfVersion(Long itemId, int stockQuantity, Long version) {
+        return executeStockUpdate(itemId, em.createNativeQuery("update item" +
+                        " set stock_quantity = :stockQuantity, version = version + 1" +
+                        " where item_id = :id and version = :version")
+                .setParameter("stockQuantity", stockQuantity)
+                .setParameter("id", itemId)
+                .setParameter("version", version)) == 1;
+    }
 
+    /**
+     * JPQL 벌크 update는 2차 캐시의 Item 영역 전체(+ item 테이블을 쓰는 쿼리 캐시)를 비워버림.
+     * 주문 한 건마다 상품 캐시가 통째로 날아가면 캐시를 쓰는 의미가 없어서
+     * native 쿼리에 빈 query space를 지정해 전체 무효화를 막고, 커밋 후 바뀐 상품 하나만 캐시에서 뺌
+     */
+    private int executeStockUpdate(Long itemId, Query query) {
+        em.flush(); // 동기화 대상을 비웠으니 자동 flush가 안 됨. 쓰기 지연된 insert/update를 먼저 반영
+        int updated = query.unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .executeUpdate();
+        if (updated > 0) {
+            evictAfterCommit(itemId);
+        }
+        return updated;
+    }
+
+    private void evictAfterCommit(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, itemId);
+        // 커밋 전에 다른 트랜잭션이 예전 값을 다시 올려놓을 수 있으니 커밋 후에 한 번 더
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evict(Item.class, itemId);
+            }
+        });
+    }
 }
@@ -2,11 +2,15 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
@@ -32,11 +36,49 @@ public class MemberRepository {
         return em.find(Member.class, id);
     }
 
+    /**
+     * ?fields= 로 고른 회원 필드만 조회
+     * v2 응답(MemberDto)에 있는 name만 둠. id, 주소 같은 건 여기 등록하면 바로 공개 API로 나가니까 따로 API를 만들어야 됨
+     */
+    private static final FieldProjection FIELDS = new FieldProjection("Member m", "m.id")
+            .field("name", null, "m.name");
+
+    public FieldProjection.Plan compileFields(String fields) {
+        return FIELDS.compile(fields);
+    }
+
+    public List<Map<String, Object>> findAll(FieldProjection.Plan plan) {
+        return plan.toMaps(plan.createQuery(em).getResultList());
+    }
+
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class)
+        return ReadOnlyQuery.apply(em.createQuery("select m from Member m", Member.class))
+                .getResultList();
+    }
+
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
                 .getResultList();
     }
 
+    /**
+     * 회원 이름 전체를 순서대로 흘려보냄 (MemberNameFilter 적재용)
+     * 엔티티를 만들지 않고 이름만 읽어서 회원이 많아도 메모리를 거의 안 씀
+     */
+    public Stream<String> streamAllNames() {
+        return em.createQuery("select m.name from Member m", String.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream();
+    }
+
+    /**
+     * insert를 바로 보내서 unique 제약 위반을 이 자리에서 받음 (커밋할 때 터지면 예외 변환이 안 됨)
+     */
+    public void flush() {
+        em.flush();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
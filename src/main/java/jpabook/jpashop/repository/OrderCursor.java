@@ -0,0 +1,76 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.exception.InvalidPageRequestException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 클라이언트에는 encode()한 문자열(continuation token)만 내려주고
+ * 다음 요청에서 그대로 받아서 decode()로 복원함. 토큰 내부 형식은 외부에 노출하지 않음
+ *
+ * byOrderDate = false: order_id 순서로 페이징
+ * byOrderDate = true : (orderDate, order_id) 순서로 페이징
+ */
+@Getter
+public class OrderCursor {
+
+    private static final String BY_ID = "I";
+    private static final String BY_ORDER_DATE = "D";
+    private static final String SEPARATOR = "|";
+
+    private final boolean byOrderDate;
+    private final Long lastOrderId;             // 마지막으로 본 order_id (첫 페이지면 null)
+    private final LocalDateTime lastOrderDate;  // 마지막으로 본 orderDate (byOrderDate일 때만 사용)
+
+    private OrderCursor(boolean byOrderDate, Long lastOrderId, LocalDateTime lastOrderDate) {
+        this.byOrderDate = byOrderDate;
+        this.lastOrderId = lastOrderId;
+        this.lastOrderDate = lastOrderDate;
+    }
+
+    // 첫 페이지
+    public static OrderCursor first(boolean byOrderDate) {
+        return new OrderCursor(byOrderDate, null, null);
+    }
+
+    // 이번 페이지의 마지막 주문 다음부터
+    public OrderCursor next(Order last) {
+        return new OrderCursor(byOrderDate, last.getId(), byOrderDate ? last.getOrderDate() : null);
+    }
+
+    public boolean hasLast() {
+        return lastOrderId != null;
+    }
+
+    public String encode() {
+        String raw = byOrderDate
+                ? BY_ORDER_DATE + SEPARATOR + lastOrderId + SEPARATOR + lastOrderDate
+                : BY_ID + SEPARATOR + lastOrderId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 해석할 수 없는 토큰이면 InvalidPageRequestException (400)
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (BY_ID.equals(parts[0]) && parts.length == 2) {
+                return new OrderCursor(false, Long.valueOf(parts[1]), null);
+            }
+            if (BY_ORDER_DATE.equals(parts[0]) && parts.length == 3) {
+                return new OrderCursor(true, Long.valueOf(parts[1]), LocalDateTime.parse(parts[2]));
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidPageRequestException("잘못된 cursor 입니다.", e);
+        }
+        throw new InvalidPageRequestException("잘못된 cursor 입니다.");
+    }
+}
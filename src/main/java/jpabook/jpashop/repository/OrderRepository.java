@@ -3,6 +3,8 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
@@ -28,9 +30,9 @@ public class OrderRepository {
 
     public List<Order> findAll(OrderSearch orderSearch) {
         // 동적 쿼리를 만들어야됨
-        return em.createQuery("select o from Order o join o.member m " +
+        return ReadOnlyQuery.apply(em.createQuery("select o from Order o join o.member m " +
                 "where o.status = :status " +
-                "and m.name like :name", Order.class)
+                "and m.name like :name", Order.class))
                 .setParameter("status", orderSearch.getOrderStatus())
                 .setParameter("name", orderSearch.getMemberName())
                 .setMaxResults(1000) // 최대 1000건
@@ -62,7 +64,7 @@ public class OrderRepository {
             }
             jpql += " m.name like :name";
         }
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+        TypedQuery<Order> query = ReadOnlyQuery.apply(em.createQuery(jpql, Order.class))
                 .setMaxResults(1000); //최대 1000건
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
@@ -78,7 +80,9 @@ public class OrderRepository {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Order> cq = cb.createQuery(Order.class);
         Root<Order> o = cq.from(Order.class);
-        Join<Order, Member> m = o.join("member", JoinType.INNER); //회원과 조인
+        // 주문 목록 화면이 회원 이름을 보여줌. OSIV가 꺼져 있어서 여기서 같이 가져와야 됨
+        @SuppressWarnings("unchecked")
+        Join<Order, Member> m = (Join<Order, Member>) o.<Order, Member>fetch("member", JoinType.INNER); //회원과 조인
         List<Predicate> criteria = new ArrayList<>();
         //주문 상태 검색
         if (orderSearch.getOrderStatus() != null) {
@@ -94,11 +98,10 @@ public class OrderRepository {
             criteria.add(name);
         }
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000);
+        TypedQuery<Order> query = ReadOnlyQuery.apply(em.createQuery(cq)).setMaxResults(1000);
         return query.getResultList();
     }
 
-
     /**
      * 외부의 모습을 건들이지 않은 상태. 내부에서 원하는 것만 fetch join으로 성능 튜닝을 한 것
      * entity를 조회해서 비즈니스 로직에서 데이터 변경 가능
@@ -106,22 +109,57 @@ public class OrderRepository {
     public List<Order> findAllWithMemberDelivery() {
         // order, member, delivery를 join하고 select 절에 다 넣어서 가져오는 것
         // 이 경우에는 LAZY는 다 무시됨
-        return em.createQuery("select o from Order o" +
+        return ReadOnlyQuery.apply(em.createQuery("select o from Order o" +
                 " join fetch o.member m" +
-                " join fetch o.delivery d", Order.class)
+                " join fetch o.delivery d", Order.class))
                 .getResultList();
     }
 
     // 페이징 쿼리
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
-        return em.createQuery("select o from Order o" +
+        return ReadOnlyQuery.apply(em.createQuery("select o from Order o" +
                         " join fetch o.member m" +
-                        " join fetch o.delivery d", Order.class)
+                        " join fetch o.delivery d", Order.class))
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
 
+    /**
+     * 키셋(seek) 페이징 쿼리
+     * offset 방식은 건너뛰는 row도 db가 전부 읽고 버려야 해서 뒤 페이지로 갈수록 느려짐.
+     * 마지막으로 본 order_id(+ orderDate) 다음부터 인덱스를 타고 limit만큼만 읽으니까
+     * 몇 번째 페이지든 걸리는 시간이 일정함.
+     * ToOne은 똑같이 fetch join, orderItems는 @BatchSize로 가져옴
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (cursor.isByOrderDate()) {
+            if (cursor.hasLast()) {
+                jpql += " where o.orderDate > :orderDate" +
+                        " or (o.orderDate = :orderDate and o.id > :orderId)";
+            }
+            jpql += " order by o.orderDate, o.id";
+        } else {
+            if (cursor.hasLast()) {
+                jpql += " where o.id > :orderId";
+            }
+            jpql += " order by o.id";
+        }
+
+        TypedQuery<Order> query = ReadOnlyQuery.apply(em.createQuery(jpql, Order.class))
+                .setMaxResults(limit);
+        if (cursor.hasLast()) {
+            query.setParameter("orderId", cursor.getLastOrderId());
+            if (cursor.isByOrderDate()) {
+                query.setParameter("orderDate", cursor.getLastOrderDate());
+            }
+        }
+        return query.getResultList();
+    }
+
 
     /**
      * distinct 없이 실행하면 id가 중복된 결과가 그대로 나옴
@@ -133,19 +171,55 @@ public class OrderRepository {
      * distinct 키워드의 역할
      * 1. db에 distinct 키워드를 날림
      * 2. 루트 엔티티가 중복인 경우에 중복을 없애고 보내줌
+     *
+     * 여기에 바로 setFirstResult/setMaxResults를 걸면 전체를 메모리로 읽고 페이징함 (HHH000104)
+     * 그래서 주문 id를 먼저 한 페이지 뽑고 그 주문들만 fetch join (IdPaging)
+     * 중복 제거는 메모리에서만 하면 되니까 db로는 distinct를 안 보냄 (PASS_DISTINCT_THROUGH)
      */
-    public List<Order> findAllWithItem() {
-        return em.createQuery(
+    public List<Order> findAllWithItem(int offset, int limit) {
+        TypedQuery<Long> ids = em.createQuery("select o.id from Order o order by o.id", Long.class);
+        return IdPaging.fetch(ids, offset, limit, this::findAllWithItem, Order::getId);
+    }
+
+    private List<Order> findAllWithItem(List<Long> orderIds) {
+        return ReadOnlyQuery.apply(em.createQuery(
                 "select distinct o from Order o" +
                         " join fetch o.member m" +
                         " join fetch o.delivery d" +
                         " join fetch o.orderItems oi" +
-                        " join fetch oi.item i", Order.class)
-                .setFirstResult(1)
-                .setMaxResults(100)
+                        " join fetch oi.item i" +
+                        " where o.id in :orderIds", Order.class))
+                .setParameter("orderIds", orderIds)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
                 .getResultList();
     }
 
+    //== 주문 합계 backfill (주문 id 구간 단위) ==//
+
+    /**
+     * [min, max] order_id. 주문이 없으면 null
+     */
+    public Object[] findOrderIdRange() {
+        return (Object[]) em.createNativeQuery("select min(order_id), max(order_id) from orders")
+                .getSingleResult();
+    }
+
+    /**
+     * total_price, line_count를 order_item에서 다시 계산
+     * 영속성 컨텍스트를 거치지 않으니 이미 올라와 있는 Order에는 반영 안 됨 (별도 트랜잭션에서 사용)
+     */
+    public int backfillTotals(long fromId, long toId) {
+        return em.createNativeQuery("update orders o set" +
+                        " total_price = coalesce((select sum(oi.order_price * oi.count) from order_item oi where oi.order_id = o.order_id), 0)," +
+                        " line_count = (select count(*) from order_item oi where oi.order_id = o.order_id)" +
+                        " where o.order_id between :fromId and :toId")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Order.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
+
 
 
     /**
@@ -0,0 +1,138 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    /**
+     * 원본 테이블에서 요약 row를 계산하는 select (rebuild, 정합성 검사 공용)
+     * order_item 합계는 같은 주문 id 구간만 group by
+     */
+    private static final String SOURCE_SELECT =
+            "select o.order_id, m.member_id, m.name as member_name, o.order_date, o.status," +
+            " d.city, d.street, d.zipcode," +
+            " coalesce(t.item_count, 0) as item_count, coalesce(t.total_price, 0) as total_price" +
+            " from orders o" +
+            " join member m on m.member_id = o.member_id" +
+            " join delivery d on d.delivery_id = o.delivery_id" +
+            " left join (select oi.order_id, sum(oi.count) as item_count, sum(oi.order_price * oi.count) as total_price" +
+            "   from order_item oi where oi.order_id between :fromId and :toId group by oi.order_id) t" +
+            "   on t.order_id = o.order_id" +
+            " where o.order_id between :fromId and :toId";
+
+    /**
+     * 원본 주문이 없는 요약 row (고아 정리, 정합성 검사 공용)
+     */
+    private static final String ORPHANS = " from order_summary s" +
+            " where not exists (select 1 from orders o where o.order_id = s.order_id)";
+
+    private final EntityManager em;
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    /**
+     * join 없이 요약 테이블만 읽음
+     */
+    public List<OrderSummary> findAll(int offset, int limit) {
+        return ReadOnlyQuery.apply(em.createQuery("select s from OrderSummary s order by s.orderId", OrderSummary.class))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 회원 이름이 바뀌면 그 회원의 요약 row 이름도 같이 바꿈
+     */
+    public int updateMemberName(Long memberId, String name) {
+        return em.createQuery("update OrderSummary s set s.memberName = :name where s.memberId = :memberId")
+                .setParameter("name", name)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    //== rebuild / 정합성 검사 (주문 id 구간 단위) ==//
+
+    /**
+     * [min, max] order_id. 주문이 없으면 null
+     */
+    public Object[] findOrderIdRange() {
+        return (Object[]) em.createNativeQuery("select min(order_id), max(order_id) from orders")
+                .getSingleResult();
+    }
+
+    /**
+     * 구간을 지우고 원본에서 insert-select로 다시 채움 (엔티티를 거치지 않음)
+     * native update는 query space를 안 주면 2차 캐시 전체를 비우니까 order_summary만 지정
+     */
+    public int rebuildRange(long fromId, long toId) {
+        em.createNativeQuery("delete from order_summary where order_id between :fromId and :toId")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderSummary.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+        return em.createNativeQuery("insert into order_summary" +
+                        " (order_id, member_id, member_name, order_date, status, city, street, zipcode, item_count, total_price) " +
+                        SOURCE_SELECT)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderSummary.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
+
+    public int deleteOrphans() {
+        return em.createNativeQuery("delete" + ORPHANS)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderSummary.class)
+                .executeUpdate();
+    }
+
+    /**
+     * 원본과 다르거나 요약이 없는 주문 id (구간 하나라서 최대 구간 크기만큼)
+     * 주소/이름은 null일 수 있어서 <> 대신 is distinct from (null <> 값은 unknown이라 불일치를 놓침)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Number> findMismatchedOrderIds(long fromId, long toId) {
+        return em.createNativeQuery("select src.order_id from (" + SOURCE_SELECT + ") src" +
+                        " left join order_summary s on s.order_id = src.order_id" +
+                        " where s.order_id is null" +
+                        " or s.member_id is distinct from src.member_id or s.member_name is distinct from src.member_name" +
+                        " or s.order_date is distinct from src.order_date or s.status is distinct from src.status" +
+                        " or s.city is distinct from src.city or s.street is distinct from src.street" +
+                        " or s.zipcode is distinct from src.zipcode" +
+                        " or s.item_count is distinct from src.item_count or s.total_price is distinct from src.total_price" +
+                        " order by src.order_id")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList();
+    }
+
+    public long countOrphans() {
+        return ((Number) em.createNativeQuery("select count(*)" + ORPHANS).getSingleResult()).longValue();
+    }
+
+    /**
+     * 원본 주문이 없는데 남아 있는 요약 order_id (앞에서부터 limit개)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Number> findOrphanOrderIds(int limit) {
+        return em.createNativeQuery("select s.order_id" + ORPHANS + " order by s.order_id")
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
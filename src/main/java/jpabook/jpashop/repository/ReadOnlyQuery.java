@@ -0,0 +1,35 @@
+package jpabook.jpashop.repository;
+
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.TypedQuery;
+
+/**
+ * 조회 쿼리를 읽기 전용으로 실행
+ *
+ * 읽기 전용으로 불러온 엔티티는 하이버네이트가 변경감지용 스냅샷(로딩 시점 값 복사본)을 안 남김 -> heap 절반, flush 때 비교 X
+ * 쿼리 실행 전 자동 flush도 안 함 (MANUAL)
+ *
+ * readOnly 트랜잭션이거나 트랜잭션 밖(어차피 준영속이 됨)일 때만 붙임.
+ * 쓰기 트랜잭션에서 불러온 엔티티는 변경감지가 돼야 하니까 그대로 둠
+ */
+public final class ReadOnlyQuery {
+
+    private ReadOnlyQuery() {
+    }
+
+    public static <T> TypedQuery<T> apply(TypedQuery<T> query) {
+        if (isReadOnly()) {
+            query.setHint(QueryHints.HINT_READONLY, true);
+            query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
+    public static boolean isReadOnly() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
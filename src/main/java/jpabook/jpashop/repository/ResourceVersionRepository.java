@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.ResourceVersion;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ResourceVersionRepository {
+
+    private final EntityManager em;
+
+    public List<ResourceVersion> findAll() {
+        return ReadOnlyQuery.apply(em.createQuery("select v from ResourceVersion v", ResourceVersion.class))
+                .getResultList();
+    }
+
+    /**
+     * version + 1. row가 없으면 initial로 만듦
+     * 읽고 쓰지 않고 update 한 번이라 인스턴스 여러 대가 동시에 올려도 빠지는 값이 없음
+     */
+    public void bump(String name, long initial) {
+        em.createNativeQuery("merge into resource_version t using (select cast(:name as varchar(255)) as name) s" +
+                        " on (t.name = s.name)" +
+                        " when matched then update set t.version = t.version + 1" +
+                        " when not matched then insert (name, version) values (s.name, :initial)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ResourceVersion.class)
+                .setParameter("name", name)
+                .setParameter("initial", initial)
+                .executeUpdate();
+    }
+
+    /**
+     * row가 없을 때만 initial로 만듦
+     */
+    public void createIfAbsent(String name, long initial) {
+        em.createNativeQuery("merge into resource_version t using (select cast(:name as varchar(255)) as name) s" +
+                        " on (t.name = s.name)" +
+                        " when not matched then insert (name, version) values (s.name, :initial)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ResourceVersion.class)
+                .setParameter("name", name)
+                .setParameter("initial", initial)
+                .executeUpdate();
+    }
+}
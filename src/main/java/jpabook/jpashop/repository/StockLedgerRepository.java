@@ -0,0 +1,54 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.StockLedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockLedgerRepository {
+
+    private final EntityManager em;
+
+    public void save(StockLedgerEntry entry) {
+        em.persist(entry);
+    }
+
+    /**
+     * item 재고 + 아직 item에 반영 안 된 변경량 합계
+     * flush가 중간에 끼어들어도 어긋나지 않게 쿼리 하나로 같은 시점의 값을 읽음
+     */
+    public int findAvailableStock(Long itemId) {
+        return em.createQuery("select i.stockQuantity + coalesce(" +
+                        "(select sum(e.delta) from StockLedgerEntry e where e.itemId = i.id), 0)" +
+                        " from Item i where i.id = :id", Number.class)
+                .setParameter("id", itemId)
+                .getSingleResult()
+                .intValue();
+    }
+
+    /**
+     * 반영 안 된 저널이 하나라도 있는지 (id 하나만 읽음)
+     */
+    public boolean existsPending() {
+        return !em.createQuery("select e.id from StockLedgerEntry e", Long.class)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    public List<StockLedgerEntry> findPending(int limit) {
+        return em.createQuery("select e from StockLedgerEntry e order by e.id", StockLedgerEntry.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public void deleteAllByIds(List<Long> ids) {
+        em.createQuery("delete from StockLedgerEntry e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
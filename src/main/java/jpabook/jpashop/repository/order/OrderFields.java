@@ -0,0 +1,29 @@
+package jpabook.jpashop.repository.order;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.FieldProjection;
+
+/**
+ * 주문 목록 API의 ?fields= 로 고를 수 있는 필드
+ * 회원 이름(name)을 고를 때만 member join, 배송지(address)를 고를 때만 delivery join
+ * memberId는 orders.member_id(FK)라서 join 없이 나감
+ */
+public class OrderFields {
+
+    private OrderFields() {
+    }
+
+    public static FieldProjection create() {
+        return new FieldProjection("Order o", "o.id")
+                .field("orderId", null, "o.id")
+                .field("memberId", null, "o.member.id")
+                .field("name", "join o.member m", "m.name")
+                .field("orderDate", null, "o.orderDate")
+                .field("orderStatus", null, "o.status")
+                .field("address", "join o.delivery d",
+                        v -> new Address((String) v[0], (String) v[1], (String) v[2]),
+                        "d.address.city", "d.address.street", "d.address.zipcode")
+                .field("totalPrice", null, "o.totalPrice")
+                .field("lineCount", null, "o.lineCount");
+    }
+}
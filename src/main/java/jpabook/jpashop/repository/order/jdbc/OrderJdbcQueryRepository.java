@@ -0,0 +1,101 @@
+package jpabook.jpashop.repository.order.jdbc;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 DTO 조회를 EntityManager 없이 JDBC로 바로 하는 버전 (OrderSimpleQueryRepository, OrderQueryRepository와 같은 결과)
+ *
+ * JPA로 DTO를 조회하면 순수 읽기여도 jpql 파싱/plan cache 조회, 결과마다 생성자 리플렉션을 거침.
+ * 여기서는 sql을 상수로 두고 RowMapper로 직접 DTO를 만듦
+ * - sql 문자열이 항상 같으니 H2가 세션(커넥션)마다 prepared statement를 캐시해서 재사용함 (QUERY_CACHE_SIZE)
+ * - 영속성 컨텍스트를 안 거치니 트랜잭션 안에서 아직 flush 안 된 변경은 안 보임. 읽기 전용 API에서만 사용
+ * - 엔티티 매핑을 안 거치니 컬럼이 바뀌면 여기 sql도 같이 바꿔야 됨 (BulkDataGenerator와 같음)
+ * - 순서는 JPA 쪽과 같게 주문은 order_id, 주문상품은 order_item_id 순서
+ *
+ * API에서 쓸지는 jpashop.jdbc-read.* 로 엔드포인트마다 켬 (JdbcReadProperties)
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderJdbcQueryRepository {
+
+    private static final String ORDERS =
+            "select o.order_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode, o.total_price, o.line_count" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id" +
+                    " order by o.order_id";
+
+    private static final String ORDER_ITEMS =
+            "select oi.order_id, i.name, oi.order_price, oi.count" +
+                    " from order_item oi" +
+                    " join item i on i.item_id = oi.item_id" +
+                    " order by oi.order_item_id";
+
+    private static final RowMapper<OrderSimpleQueryDto> SIMPLE_ORDER = (rs, rowNum) -> new OrderSimpleQueryDto(
+            rs.getLong(1), rs.getString(2), rs.getObject(3, LocalDateTime.class), status(rs, 4), address(rs, 5),
+            rs.getInt(8), rs.getInt(9));
+
+    private static final RowMapper<OrderQueryDto> ORDER = (rs, rowNum) -> new OrderQueryDto(
+            rs.getLong(1), rs.getString(2), rs.getObject(3, LocalDateTime.class), status(rs, 4), address(rs, 5),
+            rs.getInt(8), rs.getInt(9));
+
+    private static final RowMapper<OrderItemQueryDto> ORDER_ITEM = (rs, rowNum) -> new OrderItemQueryDto(
+            rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * OrderSimpleQueryRepository.findOrderDtos()와 같음 (/api/v4/simple-orders)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos() {
+        return jdbcTemplate.query(ORDERS, SIMPLE_ORDER);
+    }
+
+    /**
+     * OrderQueryRepository.findAllByDto_optimization()과 같음 (/api/v5/orders)
+     * 주문 전체를 읽으니까 주문상품도 id 목록(in) 없이 전체를 한 번에 읽어서 Map으로 붙임. 쿼리 2번
+     */
+    public List<OrderQueryDto> findAllByDto_optimization() {
+        List<OrderQueryDto> result = jdbcTemplate.query(ORDERS, ORDER);
+        if (result.isEmpty()) {
+            return result;
+        }
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = jdbcTemplate.query(ORDER_ITEMS, ORDER_ITEM).stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        return result;
+    }
+
+    private static OrderStatus status(ResultSet rs, int column) throws SQLException {
+        String status = rs.getString(column);
+        return status == null ? null : OrderStatus.valueOf(status);
+    }
+
+    /**
+     * JPA처럼 컬럼이 전부 null이면 임베디드 값 타입도 null
+     */
+    private static Address address(ResultSet rs, int column) throws SQLException {
+        String city = rs.getString(column);
+        String street = rs.getString(column + 1);
+        String zipcode = rs.getString(column + 2);
+        if (city == null && street == null && zipcode == null) {
+            return null;
+        }
+        return new Address(city, street, zipcode);
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * OrderFlatDto(주문 x 주문상품 row) -> OrderQueryDto(주문 + orderItems) 조립기
+ *
+ * groupingBy로 묶으면 row마다 key용 OrderQueryDto를 만들고 해시를 계산해야 되고 순서도 섞임.
+ * 여기서는 row가 order by o.id로 정렬돼서 온다는 전제로 한 번만 훑으면서
+ * orderId가 바뀔 때만 새 주문을 시작함. (Map 없음, 원래 순서 유지)
+ *
+ * Iterator라서 커서(Stream)로 읽으면서 주문 단위로 하나씩 꺼내 쓸 수도 있음
+ */
+public class OrderFlatAssembler implements Iterator<OrderQueryDto> {
+
+    private final Iterator<OrderFlatDto> rows;
+    private OrderFlatDto pending; // 아직 조립 안 한 다음 주문의 첫 row
+
+    public OrderFlatAssembler(Iterator<OrderFlatDto> rows) {
+        this.rows = rows;
+        this.pending = rows.hasNext() ? rows.next() : null;
+    }
+
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> rows) {
+        return assemble(rows.iterator(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 주문(부모) 기준으로 maxOrders개까지만 조립
+     * row 기준 limit과 달리 주문 하나의 상품이 중간에 잘리지 않음
+     */
+    public static List<OrderQueryDto> assemble(Iterator<OrderFlatDto> rows, int maxOrders) {
+        OrderFlatAssembler assembler = new OrderFlatAssembler(rows);
+        List<OrderQueryDto> result = new ArrayList<>();
+        while (result.size() < maxOrders && assembler.hasNext()) {
+            result.add(assembler.next());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    @Override
+    public OrderQueryDto next() {
+        if (pending == null) {
+            throw new NoSuchElementException();
+        }
+        OrderFlatDto first = pending;
+        pending = null;
+
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        orderItems.add(toOrderItem(first));
+        while (rows.hasNext()) {
+            OrderFlatDto row = rows.next();
+            if (!row.getOrderId().equals(first.getOrderId())) {
+                pending = row; // 다음 주문 시작
+                break;
+            }
+            orderItems.add(toOrderItem(row));
+        }
+        return new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(),
+                first.getOrderStatus(), first.getAddress(), orderItems);
+    }
+
+    private static OrderItemQueryDto toOrderItem(OrderFlatDto row) {
+        return new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount());
+    }
+}
@@ -17,14 +17,19 @@ public class OrderQueryDto {
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
+    private int totalPrice; // orders.total_price 그대로 (orderItems를 안 읽어도 됨)
+    private int lineCount;
     private List<OrderItemQueryDto> orderItems;
 
-    public OrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
+    public OrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address,
+                         int totalPrice, int lineCount) {
         this.orderId = orderId;
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
         this.address = address;
+        this.totalPrice = totalPrice;
+        this.lineCount = lineCount;
     }
 
     public OrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, List<OrderItemQueryDto> orderItems) {
@@ -34,5 +39,9 @@ public class OrderQueryDto {
         this.orderStatus = orderStatus;
         this.address = address;
         this.orderItems = orderItems;
+        for (OrderItemQueryDto orderItem : orderItems) { // 상품 row를 이미 다 가지고 있으니 여기서 합산
+            this.totalPrice += orderItem.getOrderPrice() * orderItem.getCount();
+        }
+        this.lineCount = orderItems.size();
     }
 }
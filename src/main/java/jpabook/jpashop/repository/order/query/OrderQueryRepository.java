@@ -1,18 +1,64 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.repository.ChunkedInLoader;
+import jpabook.jpashop.repository.FieldProjection;
+import jpabook.jpashop.repository.order.OrderFields;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final FieldProjection FIELDS = OrderFields.create().virtualField("orderItems");
+
+    /**
+     * Jackson의 LocalDateTime 형식(ISO_LOCAL_DATE_TIME)과 같은 문자열
+     * H2는 '2022-09-14 13:57:04.377140'처럼 공백에 소수점 자리를 3자리씩 채워서 주니까
+     * 'T'로 바꾸고 소수점 뒤의 0을 떼어냄 (0밖에 없으면 소수점까지) -> '2022-09-14T13:57:04.37714'
+     */
+    private static final String ISO_ORDER_DATE =
+            "regexp_replace(regexp_replace(replace(cast(o.order_date as varchar), ' ', 'T')," +
+                    " '(\\.[0-9]*[1-9])0+$', '$1'), '\\.0+$', '')";
+
+    private static final String ORDER_ITEMS_JSON =
+            "select json_arrayagg(json_object(" +
+                    "'orderId': oi.order_id, 'itemName': i.name, 'orderPrice': oi.order_price, 'count': oi.count)" +
+                    " order by oi.order_item_id)" +
+                    " from order_item oi" +
+                    " join item i on i.item_id = oi.item_id" +
+                    " where oi.order_id = o.order_id";
+
+    private static final String ORDERS_JSON =
+            "select json_arrayagg(json_object(" +
+                    "'orderId': o.order_id," +
+                    " 'name': m.name," +
+                    " 'orderDate': " + ISO_ORDER_DATE + "," +
+                    " 'orderStatus': o.status," +
+                    " 'address': json_object('city': d.city, 'street': d.street, 'zipcode': d.zipcode)," +
+                    " 'totalPrice': o.total_price," +
+                    " 'lineCount': o.line_count," +
+                    " 'orderItems': (" + ORDER_ITEMS_JSON + ") format json" +
+                    ") order by o.order_id) as orders" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id";
+
+    private static final byte[] EMPTY_JSON_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+
     private final EntityManager em;
+    private final ChunkedInLoader chunkedInLoader;
 
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders(); // 이거 한 번 실행하면 이거 실행한 1번, 루프가 2개 나옴 -> N개
@@ -42,13 +88,62 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * v5와 같은 모양의 JSON을 db(H2)가 직접 만듦. 쿼리 한 번, 결과는 UTF-8 JSON byte[] 하나
+     *
+     * 주문상품은 주문마다 상관 서브쿼리의 JSON_ARRAYAGG로 배열을 만들어 JSON_OBJECT 안에 넣고,
+     * 주문들을 다시 JSON_ARRAYAGG로 묶음. JVM에서는 row -> DTO -> Map 그룹핑 -> Jackson 직렬화를 다 건너뜀
+     * - orderDate는 Jackson(ISO-8601)과 같은 문자열로 만듦 (ISO_ORDER_DATE)
+     * - 주문상품은 order_item_id 순서 (v5의 findOrderItemMap과 같게)
+     * - 주문이 없으면 JSON_ARRAYAGG가 null이라 "[]"
+     * - H2 전용 문법(JSON_OBJECT의 'key': value). db를 바꾸면 이 메서드만 다시 써야 함
+     */
+    public byte[] findAllByDto_json() {
+        Object json = em.createNativeQuery(ORDERS_JSON)
+                .unwrap(NativeQuery.class)
+                .addScalar("orders", StandardBasicTypes.BINARY)
+                .getSingleResult();
+        return json == null ? EMPTY_JSON_ARRAY : (byte[]) json;
+    }
+
+    /**
+     * ?fields= 로 고른 주문 필드만 select. orderItems를 고르면 v5처럼 in 쿼리 한 번으로 붙임
+     * (주문상품을 붙이려면 orderId가 필요해서 안 골랐어도 조회는 하고 결과에서 뺌)
+     */
+    public FieldProjection.Plan compileFields(String fields) {
+        return FIELDS.compile(fields);
+    }
+
+    public List<Map<String, Object>> findAllByDto_optimization(FieldProjection.Plan plan) {
+        if (!plan.has("orderItems")) {
+            return plan.toMaps(plan.createQuery(em).getResultList());
+        }
+        boolean hideOrderId = !plan.has("orderId");
+        FieldProjection.Plan query = hideOrderId ? FIELDS.compile(plan.getKey() + ",orderId") : plan;
+        List<Map<String, Object>> result = query.toMaps(query.createQuery(em).getResultList());
+
+        List<Long> orderIds = result.stream()
+                .map(row -> (Long) row.get("orderId"))
+                .collect(Collectors.toList());
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderIds.isEmpty() ? Collections.emptyMap() : findOrderItemMap(orderIds);
+        for (Map<String, Object> row : result) {
+            Long orderId = hideOrderId ? (Long) row.remove("orderId") : (Long) row.get("orderId");
+            row.put("orderItems", orderItemMap.getOrDefault(orderId, Collections.emptyList()));
+        }
+        return result;
+    }
+
+    /**
+     * 주문이 많으면 in 하나에 id가 수만 개 들어가니까 고정 크기 chunk로 잘라서 읽음 (ChunkedInLoader)
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        List<OrderItemQueryDto> orderItems = chunkedInLoader.load(em, orderIds, (entityManager, chunk) -> entityManager.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi" +
                         " join oi.item i" +
-                        " where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds).getResultList();
+                        " where oi.order.id in :orderIds" +
+                        " order by oi.id", OrderItemQueryDto.class)
+                .setParameter("orderIds", chunk).getResultList());
 
         Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
                 .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
@@ -73,23 +168,57 @@ public class OrderQueryRepository {
 
     public List<OrderQueryDto> findOrders() {
         return em.createQuery(
-                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.lineCount)" +
                         " from Order o" +
                         " join o.member m" +
-                        " join o.delivery d", OrderQueryDto.class)
+                        " join o.delivery d" +
+                        " order by o.id", OrderQueryDto.class)
                         .getResultList();
     }
 
 
+    private static final String FLAT_SELECT = "select new " +
+            "jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+            " from Order o " +
+            "join o.member m " +
+            "join o.delivery d " +
+            "join o.orderItems oi " +
+            "join oi.item i";
+
+    /**
+     * 같은 주문의 row가 붙어서 나오도록 order by o.id
+     * OrderFlatAssembler로 한 번에 훑어서 OrderQueryDto로 조립할 수 있음
+     */
     public List<OrderFlatDto> findAllByDto_flat() {
-        return em.createQuery(
-                "select new " +
-                        "jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
-                        " from Order o " +
-                        "join o.member m " +
-                        "join o.delivery d " +
-                        "join o.orderItems oi " +
-                        "join oi.item i", OrderFlatDto.class
-        ).getResultList();
+        return em.createQuery(FLAT_SELECT + " order by o.id", OrderFlatDto.class)
+                .getResultList();
+    }
+
+    /**
+     * flat 조회를 주문 단위로 페이징
+     * row에 limit을 걸면 주문 하나의 상품이 중간에 잘리니까
+     * lastOrderId 다음부터 커서로 읽으면서 주문이 limit개 완성되면 그만 읽고 커서를 닫음
+     * 커서로 읽는 동안 커넥션이 열려있어야 하니까 트랜잭션 안에서 호출 (OrderQueryService.ordersV6_page)
+     */
+    public List<OrderQueryDto> findAllByDto_flat(Long lastOrderId, int limit) {
+        try (Stream<OrderFlatDto> rows = em.createQuery(
+                        FLAT_SELECT + " where o.id > :lastOrderId order by o.id", OrderFlatDto.class)
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 100)
+                .getResultStream()) {
+            return OrderFlatAssembler.assemble(rows.iterator(), limit);
+        }
+    }
+
+    /**
+     * export용 flat 조회
+     * getResultList()처럼 전부 메모리에 올리지 않고 forward-only 커서로 fetchSize만큼씩 읽어옴
+     * 같은 주문의 row들이 붙어서 나와야 하니까 order by o.id 필수
+     * 트랜잭션 안에서 사용하고 다 읽으면 반드시 close (try-with-resources)
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(FLAT_SELECT + " order by o.id", OrderFlatDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
     }
 }
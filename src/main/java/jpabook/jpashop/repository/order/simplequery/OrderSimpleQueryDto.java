@@ -14,12 +14,17 @@ public class OrderSimpleQueryDto {
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
+    private int totalPrice;
+    private int lineCount;
 
-    public OrderSimpleQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
+    public OrderSimpleQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address,
+                               int totalPrice, int lineCount) {
         this.orderId = orderId;
         this.name =  name;// LAZY 초기화 - 영속성 컨텍스트가 찾아보고 없으면 DB 쿼리 날려서 가져옴
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
         this.address = address;
+        this.totalPrice = totalPrice;
+        this.lineCount = lineCount;
     }
 }
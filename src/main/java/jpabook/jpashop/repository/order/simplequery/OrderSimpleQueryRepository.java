@@ -1,21 +1,38 @@
 package jpabook.jpashop.repository.order.simplequery;
 
+import jpabook.jpashop.repository.FieldProjection;
+import jpabook.jpashop.repository.order.OrderFields;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderSimpleQueryRepository {
+    private static final FieldProjection FIELDS = OrderFields.create();
+
     private final EntityManager em;
 
     public List<OrderSimpleQueryDto> findOrderDtos() {
-        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
+        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.lineCount) " +
                         " from Order o" +
                         " join o.member m" +
-                        " join o.delivery d", OrderSimpleQueryDto.class)
+                        " join o.delivery d" +
+                        " order by o.id", OrderSimpleQueryDto.class)
                 .getResultList();
     }
+
+    /**
+     * ?fields= 로 고른 필드만 select. 회원 이름/배송지를 안 고르면 member/delivery join도 없음
+     */
+    public FieldProjection.Plan compileFields(String fields) {
+        return FIELDS.compile(fields);
+    }
+
+    public List<Map<String, Object>> findOrderDtos(FieldProjection.Plan plan) {
+        return plan.toMaps(plan.createQuery(em).getResultList());
+    }
 }
@@ -0,0 +1,14 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class DailySalesDto {
+    private LocalDate date;
+    private long revenue;
+    private long units;
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemSalesDto {
+    private Long itemId;
+    private String itemName;
+    private String dtype;
+    private long revenue;
+    private long units;
+}
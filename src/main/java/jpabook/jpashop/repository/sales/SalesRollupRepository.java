@@ -0,0 +1,252 @@
+package jpabook.jpashop.repository.sales;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.SalesItemDaily;
+import jpabook.jpashop.domain.SalesTypeDaily;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 매출 집계 테이블(sales_item_daily, sales_type_daily) 갱신/조회
+ * 그리고 집계 테이블로 답할 수 없는 기간(하루 단위가 아닌 범위)용 원본 group by 조회
+ *
+ * 갱신은 merge(upsert)로 증감만 더함. 엔티티를 읽어서 고치면 같은 날/상품 row에 주문이 몰릴 때 갱신 손실이 남
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+    private static final String MERGE_ITEM_DAILY =
+            "merge into sales_item_daily t using (%s) s" +
+            " on (t.sales_date = s.sales_date and t.item_id = s.item_id and t.status = s.status)" +
+            " when matched then update set t.revenue = t.revenue + s.revenue, t.units = t.units + s.units" +
+            " when not matched then insert (sales_date, item_id, status, dtype, revenue, units)" +
+            " values (s.sales_date, s.item_id, s.status, s.dtype, s.revenue, s.units)";
+
+    private static final String MERGE_TYPE_DAILY =
+            "merge into sales_type_daily t using (%s) s" +
+            " on (t.sales_date = s.sales_date and t.dtype = s.dtype and t.status = s.status)" +
+            " when matched then update set t.revenue = t.revenue + s.revenue, t.units = t.units + s.units" +
+            " when not matched then insert (sales_date, dtype, status, revenue, units)" +
+            " values (s.sales_date, s.dtype, s.status, s.revenue, s.units)";
+
+    private final EntityManager em;
+
+    //== 증분 갱신 ==//
+
+    /**
+     * 상품 하나의 하루치 증감 (취소면 음수)
+     */
+    public void add(LocalDate salesDate, Long itemId, String dtype, OrderStatus status, long revenue, long units) {
+        String delta = "select cast(:salesDate as date) as sales_date, cast(:itemId as bigint) as item_id," +
+                " cast(:status as varchar(255)) as status, cast(:dtype as varchar(31)) as dtype," +
+                " cast(:revenue as bigint) as revenue, cast(:units as bigint) as units";
+        for (String merge : new String[]{MERGE_ITEM_DAILY, MERGE_TYPE_DAILY}) {
+            nativeUpdate(String.format(merge, delta))
+                    .setParameter("salesDate", salesDate)
+                    .setParameter("itemId", itemId)
+                    .setParameter("status", status.name())
+                    .setParameter("dtype", dtype)
+                    .setParameter("revenue", revenue)
+                    .setParameter("units", units)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * item_id -> dtype. 주문상품의 상품이 초기화 안 된 프록시일 때 엔티티를 읽지 않고 dtype만 가져옴
+     */
+    public Map<Long, String> findItemDtypes(Collection<Long> itemIds) {
+        List<?> rows = em.createNativeQuery("select item_id, dtype from item where item_id in (:ids)")
+                .setParameter("ids", itemIds)
+                .getResultList();
+        Map<Long, String> dtypes = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            dtypes.put(((Number) columns[0]).longValue(), (String) columns[1]);
+        }
+        return dtypes;
+    }
+
+    //== 전체 재생성 ==//
+
+    public void deleteAll() {
+        nativeUpdate("delete from sales_item_daily").executeUpdate();
+        nativeUpdate("delete from sales_type_daily").executeUpdate();
+    }
+
+    /**
+     * 주문 id 구간을 group by 해서 상품별 집계에 더함
+     * 같은 날짜의 주문이 여러 구간에 걸쳐 있을 수 있으니 insert가 아니라 merge
+     */
+    public int addOrderRange(long fromId, long toId) {
+        String delta = "select cast(o.order_date as date) as sales_date, oi.item_id, o.status, i.dtype," +
+                " sum(oi.order_price * oi.count) as revenue, sum(oi.count) as units" +
+                " from orders o" +
+                " join order_item oi on oi.order_id = o.order_id" +
+                " join item i on i.item_id = oi.item_id" +
+                " where o.order_id between :fromId and :toId" +
+                " group by cast(o.order_date as date), oi.item_id, o.status, i.dtype";
+        return nativeUpdate(String.format(MERGE_ITEM_DAILY, delta))
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
+
+    /**
+     * 상품별 집계를 다 채운 다음 타입별 집계를 거기서 다시 계산
+     */
+    public int rebuildTypeDaily() {
+        return nativeUpdate("insert into sales_type_daily (sales_date, dtype, status, revenue, units)" +
+                " select sales_date, dtype, status, sum(revenue), sum(units)" +
+                " from sales_item_daily group by sales_date, dtype, status").executeUpdate();
+    }
+
+    //== 조회 (집계 테이블, [from, to) 일 단위) ==//
+
+    @SuppressWarnings("unchecked")
+    public List<ItemSalesDto> findItemSales(LocalDate from, LocalDate to, OrderStatus status, int limit) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "select t.item_id, i.name, t.dtype, t.revenue, t.units from (" +
+                        " select item_id, dtype, sum(revenue) as revenue, sum(units) as units" +
+                        " from sales_item_daily" +
+                        " where sales_date >= :from and sales_date < :to and status = :status" +
+                        " group by item_id, dtype) t" +
+                        " join item i on i.item_id = t.item_id" +
+                        " order by t.revenue desc")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name())
+                .setMaxResults(limit)
+                .getResultList();
+        return toItemSales(rows);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TypeSalesDto> findTypeSales(LocalDate from, LocalDate to, OrderStatus status) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "select dtype, sum(revenue), sum(units) from sales_type_daily" +
+                        " where sales_date >= :from and sales_date < :to and status = :status" +
+                        " group by dtype order by dtype")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name())
+                .getResultList();
+        return toTypeSales(rows);
+    }
+
+    /**
+     * dtype이 null이면 전체 타입 합계
+     */
+    @SuppressWarnings("unchecked")
+    public List<DailySalesDto> findDailySales(LocalDate from, LocalDate to, OrderStatus status, String dtype) {
+        Query query = em.createNativeQuery(
+                        "select sales_date, sum(revenue), sum(units) from sales_type_daily" +
+                        " where sales_date >= :from and sales_date < :to and status = :status" +
+                        (dtype == null ? "" : " and dtype = :dtype") +
+                        " group by sales_date order by sales_date")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name());
+        if (dtype != null) {
+            query.setParameter("dtype", dtype);
+        }
+        return toDailySales(query.getResultList());
+    }
+
+    //== 조회 (원본 group by, [from, to) 시각 단위) ==//
+
+    private static final String RAW_FROM = " from orders o" +
+            " join order_item oi on oi.order_id = o.order_id" +
+            " join item i on i.item_id = oi.item_id" +
+            " where o.order_date >= :from and o.order_date < :to and o.status = :status";
+
+    @SuppressWarnings("unchecked")
+    public List<ItemSalesDto> findItemSalesRaw(LocalDateTime from, LocalDateTime to, OrderStatus status, int limit) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "select i.item_id, i.name, i.dtype, sum(oi.order_price * oi.count) as revenue, sum(oi.count)" +
+                        RAW_FROM +
+                        " group by i.item_id, i.name, i.dtype order by revenue desc")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name())
+                .setMaxResults(limit)
+                .getResultList();
+        return toItemSales(rows);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TypeSalesDto> findTypeSalesRaw(LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "select i.dtype, sum(oi.order_price * oi.count), sum(oi.count)" +
+                        RAW_FROM +
+                        " group by i.dtype order by i.dtype")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name())
+                .getResultList();
+        return toTypeSales(rows);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<DailySalesDto> findDailySalesRaw(LocalDateTime from, LocalDateTime to, OrderStatus status, String dtype) {
+        Query query = em.createNativeQuery(
+                        "select cast(o.order_date as date), sum(oi.order_price * oi.count), sum(oi.count)" +
+                        RAW_FROM +
+                        (dtype == null ? "" : " and i.dtype = :dtype") +
+                        " group by cast(o.order_date as date) order by 1")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", status.name());
+        if (dtype != null) {
+            query.setParameter("dtype", dtype);
+        }
+        return toDailySales(query.getResultList());
+    }
+
+    //== 내부 ==//
+
+    /**
+     * query space를 안 주면 native update 한 번에 2차 캐시 전체가 비워짐. 집계 테이블만 지정
+     */
+    private Query nativeUpdate(String sql) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(SalesItemDaily.class)
+                .addSynchronizedEntityClass(SalesTypeDaily.class);
+    }
+
+    private static List<ItemSalesDto> toItemSales(List<Object[]> rows) {
+        return rows.stream()
+                .map(r -> new ItemSalesDto(((Number) r[0]).longValue(), (String) r[1], (String) r[2],
+                        ((Number) r[3]).longValue(), ((Number) r[4]).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<TypeSalesDto> toTypeSales(List<Object[]> rows) {
+        return rows.stream()
+                .map(r -> new TypeSalesDto((String) r[0], ((Number) r[1]).longValue(), ((Number) r[2]).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<DailySalesDto> toDailySales(List<Object[]> rows) {
+        return rows.stream()
+                .map(r -> new DailySalesDto(toLocalDate(r[0]), ((Number) r[1]).longValue(), ((Number) r[2]).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+    }
+}
@@ -0,0 +1,12 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TypeSalesDto {
+    private String dtype;
+    private long revenue;
+    private long units;
+}
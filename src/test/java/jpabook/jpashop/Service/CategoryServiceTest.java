@@ -0,0 +1,98 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired CategoryService categoryService;
+
+    @After
+    public void tearDown() {
+        categoryService.invalidate(); // 롤백된 데이터로 만든 스냅샷이 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void 하위트리_상품조회() throws Exception {
+        // given
+        Long rootId = categoryService.saveCategory("도서", null);
+        Long childId = categoryService.saveCategory("IT", rootId);
+        Long grandChildId = categoryService.saveCategory("JPA", childId);
+        Long otherId = categoryService.saveCategory("음반", null);
+
+        Book rootBook = addBook(rootId, "도서 전체");
+        Book jpaBook = addBook(grandChildId, "JPA 책");
+        addBook(otherId, "다른 카테고리");
+
+        // when
+        List<Long> itemIds = categoryService.findItemsInSubtree(rootId).stream()
+                .map(Item::getId).collect(Collectors.toList());
+
+        // then
+        assertEquals("하위 카테고리 상품까지 포함되어야 한다", 2, itemIds.size());
+        assertTrue(itemIds.contains(rootBook.getId()));
+        assertTrue(itemIds.contains(jpaBook.getId()));
+        assertEquals("/" + rootId + "/" + childId + "/", em.find(Category.class, grandChildId).getPath());
+    }
+
+    @Test
+    public void 카테고리이동_브레드크럼() throws Exception {
+        // given
+        Long rootId = categoryService.saveCategory("도서", null);
+        Long childId = categoryService.saveCategory("IT", rootId);
+        Long grandChildId = categoryService.saveCategory("JPA", childId);
+        Long otherId = categoryService.saveCategory("전자책", null);
+
+        // when
+        categoryService.move(childId, otherId);
+        em.clear();
+        categoryService.invalidate(); // 테스트는 커밋이 안 되니까 직접 버림
+
+        // then
+        List<Long> breadcrumb = categoryService.getTree().getBreadcrumb(grandChildId).stream()
+                .map(CategoryTree.Node::getId).collect(Collectors.toList());
+        assertEquals("옮긴 카테고리의 자손 경로도 바뀌어야 한다", List.of(otherId, childId, grandChildId), breadcrumb);
+        assertTrue("원래 부모 아래에서는 빠져야 한다", categoryService.getTree().getChildren(rootId).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 하위카테고리로_이동불가() throws Exception {
+        // given
+        Long rootId = categoryService.saveCategory("도서", null);
+        Long childId = categoryService.saveCategory("IT", rootId);
+
+        // when
+        categoryService.move(rootId, childId);
+
+        // then
+        fail("자기 하위로는 옮길 수 없어야 한다.");
+    }
+
+    private Book addBook(Long categoryId, String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        em.find(Category.class, categoryId).getItems().add(book);
+        return book;
+    }
+}
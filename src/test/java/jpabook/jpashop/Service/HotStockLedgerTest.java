@@ -0,0 +1,129 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockLedgerRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 커밋/롤백 후처리(afterCommit, afterCompletion)를 봐야 하니까 테스트 트랜잭션 없이 실제로 커밋함
+ * 장부는 테스트에서 만든 상품 하나만 hot item으로 지정해서 직접 생성
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class HotStockLedgerTest {
+
+    @Autowired EntityManager em;
+    @Autowired StockLedgerRepository stockLedgerRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate tx;
+    private Long itemId;
+    private HotStockLedger ledger;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        itemId = tx.execute(s -> {
+            Book book = new Book();
+            book.setName("한정판 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            return book.getId();
+        });
+        ledger = newLedger();
+        ledger.load();
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("delete from stock_ledger_entry where item_id = ?", itemId);
+        jdbcTemplate.update("delete from item where item_id = ?", itemId);
+    }
+
+    @Test
+    public void 롤백되면_차감한_재고를_되돌림() throws Exception {
+        tx.executeWithoutResult(s -> {
+            ledger.reserve(itemId, 3);
+            assertEquals(7, ledger.availableStock(itemId));
+            s.setRollbackOnly();
+        });
+
+        assertEquals(10, ledger.availableStock(itemId));
+        assertEquals("저널도 남지 않음", 0, pendingEntries());
+    }
+
+    @Test
+    public void 재시작하면_반영_안된_저널까지_합쳐서_복원() throws Exception {
+        tx.executeWithoutResult(s -> ledger.reserve(itemId, 3));
+        assertEquals("item에는 아직 반영 전", 10, stockInDb());
+
+        HotStockLedger restarted = newLedger();
+        restarted.load();
+
+        assertEquals(7, restarted.availableStock(itemId));
+    }
+
+    @Test
+    public void flush는_순변화량만_item에_반영() throws Exception {
+        tx.executeWithoutResult(s -> ledger.reserve(itemId, 3));
+        tx.executeWithoutResult(s -> ledger.release(itemId, 1));
+        assertEquals(2, pendingEntries());
+
+        ledger.flush();
+
+        assertEquals(8, stockInDb());
+        assertEquals(0, pendingEntries());
+        assertEquals("메모리 값은 그대로", 8, ledger.availableStock(itemId));
+    }
+
+    @Test
+    public void hot_item에서_빠져도_남은_저널은_flush() throws Exception {
+        tx.executeWithoutResult(s -> ledger.reserve(itemId, 3));
+
+        // ex) 설정에서 hot item을 빼고 재시작
+        HotStockLedger restarted = new HotStockLedger(stockLedgerRepository, itemRepository, Collections.emptyList(), transactionManager);
+        restarted.flush();
+
+        assertEquals(7, stockInDb());
+        assertEquals(0, pendingEntries());
+    }
+
+    @Test
+    public void 장부_밖의_변경은_변화량만_더함() throws Exception {
+        tx.executeWithoutResult(s -> ledger.reserve(itemId, 3)); // 메모리 7
+
+        tx.executeWithoutResult(s -> ledger.adjustAfterCommit(itemId, 5)); // ex) 관리자가 재고 +5
+
+        assertEquals(12, ledger.availableStock(itemId));
+    }
+
+    private HotStockLedger newLedger() {
+        return new HotStockLedger(stockLedgerRepository, itemRepository, Collections.singletonList(itemId), transactionManager);
+    }
+
+    private int stockInDb() {
+        return jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+    }
+
+    private int pendingEntries() {
+        return jdbcTemplate.queryForObject("select count(*) from stock_ledger_entry where item_id = ?", Integer.class, itemId);
+    }
+}
@@ -59,4 +59,35 @@ public class MemberServiceTest {
         // then
         fail("예외가 발생해야 한다");
     }
-}
\ No newline at end of file
+
+    @Test(expected = IllegalStateException.class)
+    public void 이름변경_중복_예외() throws Exception {
+        // given
+        Member member1 = new Member();
+        member1.setName("kim");
+        Member member2 = new Member();
+        member2.setName("lee");
+        memberService.join(member1);
+        memberService.join(member2);
+
+        // when
+        memberService.update(member2.getId(), "kim"); // unique 제약 위반이 예외로 바뀌어야 함
+
+        // then
+        fail("예외가 발생해야 한다");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 이름변경_이름_없으면_예외() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("kim");
+        memberService.join(member);
+
+        // when
+        memberService.update(member.getId(), null); // NPE가 아니라 검증 예외
+
+        // then
+        fail("예외가 발생해야 한다");
+    }
+}
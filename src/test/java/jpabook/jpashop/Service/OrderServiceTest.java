@@ -4,18 +4,24 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughtStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -29,6 +35,10 @@ public class OrderServiceTest {
     @Autowired OrderService orderService;
     @Autowired
     OrderRepository orderRepository;
+    @Autowired
+    OrderSummaryRepository orderSummaryRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     @Test
     public void 상품주문() throws Exception {
@@ -46,6 +56,7 @@ public class OrderServiceTest {
         assertEquals("상품 주문시 상태는 ORDER", OrderStatus.ORDER, getOrder.getStatus());
         assertEquals("주문한 상품 수가 정확해야 한다", 1, getOrder.getOrderItems().size());
         assertEquals("주문 가격은 가격 * 수량이다.", 10000 * orderCount, getOrder.getTotalPrice());
+        assertEquals("주문상품 줄 수도 같이 저장", 1, getOrder.getLineCount());
         assertEquals("주문 수량만큼 재고가 줄어야 한다", 8, book.getStockQuantity());
     }
 
@@ -85,6 +96,119 @@ public class OrderServiceTest {
 
     }
 
+    @Test
+    public void 대량주문_일부실패() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+
+        List<BulkOrderCommand> commands = Arrays.asList(
+                new BulkOrderCommand(member.getId(), Arrays.asList(new BulkOrderCommand.Line(book.getId(), 3))),
+                new BulkOrderCommand(member.getId(), Arrays.asList(new BulkOrderCommand.Line(book.getId(), 100))), // 재고 부족
+                new BulkOrderCommand(-1L, Arrays.asList(new BulkOrderCommand.Line(book.getId(), 1))),              // 없는 회원
+                new BulkOrderCommand(member.getId(), Arrays.asList(new BulkOrderCommand.Line(book.getId(), 2))));
+
+        // when
+        List<BulkOrderResult> results = orderService.orderBulk(commands);
+
+        // then
+        assertTrue(results.get(0).isSuccess());
+        assertFalse("재고 부족 주문은 실패", results.get(1).isSuccess());
+        assertFalse("없는 회원 주문은 실패", results.get(2).isSuccess());
+        assertTrue("앞 주문이 실패해도 나머지는 저장", results.get(3).isSuccess());
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(results.get(3).getOrderId()).getStatus());
+        assertEquals("성공한 주문만큼만 재고가 줄어야 한다", 5, book.getStockQuantity());
+    }
+
+    @Test
+    public void 대량주문_뒤상품이_부족하면_앞상품재고도_원복() throws Exception {
+        // given
+        Member member = createMember();
+        Book enough = createBook("시골 JPA", 10000, 10);
+        Book scarce = createBook("도시 JPA", 20000, 1);
+
+        List<BulkOrderCommand> commands = Arrays.asList(
+                new BulkOrderCommand(member.getId(), Arrays.asList(
+                        new BulkOrderCommand.Line(enough.getId(), 4),
+                        new BulkOrderCommand.Line(scarce.getId(), 2))), // 두번째 상품 재고 부족
+                new BulkOrderCommand(member.getId(), Arrays.asList(new BulkOrderCommand.Line(enough.getId(), 1))));
+
+        // when
+        List<BulkOrderResult> results = orderService.orderBulk(commands);
+
+        // then
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("실패한 주문에서 먼저 차감한 재고는 되돌려야 한다", 9, enough.getStockQuantity());
+        assertEquals(1, scarce.getStockQuantity());
+    }
+
+    @Test
+    public void 회원이름_부분검색() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("회원");
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+
+        // when
+        List<Order> found = orderService.findOrders(orderSearch);
+        orderSearch.setMemberName("없는회원");
+        List<Order> notFound = orderService.findOrders(orderSearch);
+
+        // then
+        assertEquals(1, found.stream().filter(o -> o.getId().equals(orderId)).count());
+        assertTrue("이름이 맞는 회원이 없으면 주문도 없어야 한다", notFound.isEmpty());
+    }
+
+    @Test
+    public void 주문요약_동기화() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 3);
+
+        // when
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        // then
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        assertEquals("회원", summary.getMemberName());
+        assertEquals(3, summary.getItemCount());
+        assertEquals(30000, summary.getTotalPrice());
+        assertEquals("취소하면 요약도 CANCEL", OrderStatus.CANCEL, summary.getStatus());
+    }
+
+    @Test
+    public void 회원이름_부분검색_JDBC로_바뀐_회원() throws Exception {
+        // given: 엔티티를 안 거치고(JDBC) 들어오거나 이름이 바뀐 회원도 검색돼야 됨
+        Member renamed = createMember();
+        Long jdbcMemberId = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        jdbcTemplate.update("insert into member (member_id, name) values (?, ?)", jdbcMemberId, "jdbc회원");
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long renamedOrderId = orderService.order(renamed.getId(), book.getId(), 1);
+        Long jdbcOrderId = orderService.order(jdbcMemberId, book.getId(), 1);
+        em.flush();
+        jdbcTemplate.update("update member set name = ? where member_id = ?", "개명한사람", renamed.getId());
+
+        OrderSearch orderSearch = new OrderSearch();
+
+        // when
+        orderSearch.setMemberName("jdbc");
+        List<Order> inserted = orderService.findOrders(orderSearch);
+        orderSearch.setMemberName("개명");
+        List<Order> newName = orderService.findOrders(orderSearch);
+
+        // then
+        assertEquals(1, inserted.stream().filter(o -> o.getId().equals(jdbcOrderId)).count());
+        assertEquals(1, newName.stream().filter(o -> o.getId().equals(renamedOrderId)).count());
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
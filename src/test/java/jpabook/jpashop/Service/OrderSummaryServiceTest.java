@@ -0,0 +1,60 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.Service.OrderSummaryService.ConsistencyReport;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.*;
+
+/**
+ * 서비스의 TransactionTemplate은 테스트 트랜잭션에 참여하니까 끝나면 같이 롤백됨
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderSummaryServiceTest {
+
+    @Autowired OrderSummaryService orderSummaryService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 배송지가_null로_바뀐_주문도_불일치로_잡음() throws Exception {
+        // given
+        orderSummaryService.rebuild();
+        assertTrue(orderSummaryService.check().isConsistent());
+        Long orderId = jdbcTemplate.queryForObject("select min(order_id) from orders", Long.class);
+        jdbcTemplate.update("update delivery set city = null" +
+                " where delivery_id = (select delivery_id from orders where order_id = ?)", orderId);
+
+        // when
+        ConsistencyReport report = orderSummaryService.check();
+
+        // then
+        assertEquals(1, report.getMismatchedCount());
+        assertEquals(orderId, report.getMismatchedSamples().get(0));
+    }
+
+    @Test
+    public void 고아_요약은_개수와_샘플만() throws Exception {
+        // given
+        orderSummaryService.rebuild();
+        long maxOrderId = jdbcTemplate.queryForObject("select max(order_id) from orders", Long.class);
+        for (int i = 1; i <= 150; i++) {
+            jdbcTemplate.update("insert into order_summary (order_id, item_count, total_price) values (?, 0, 0)",
+                    maxOrderId + 1_000_000 + i);
+        }
+
+        // when
+        ConsistencyReport report = orderSummaryService.check();
+
+        // then
+        assertEquals(150, report.getOrphanCount());
+        assertEquals("샘플은 최대 100개", 100, report.getOrphanSamples().size());
+        assertEquals(Long.valueOf(maxOrderId + 1_000_001), report.getOrphanSamples().get(0));
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 마이그레이션의 TransactionTemplate은 테스트 트랜잭션에 참여하니까 끝나면 같이 롤백됨
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderTotalsMigrationTest {
+
+    @Autowired OrderTotalsMigration orderTotalsMigration;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 비어있는_합계를_order_item에서_다시_채움() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        Long orderId = orderService.order(member.getId(), book.getId(), 3);
+        em.flush();
+        jdbcTemplate.update("update orders set total_price = 0, line_count = 0"); // 컬럼 추가 직후 상태
+
+        // when
+        long updated = orderTotalsMigration.backfill();
+
+        // then
+        int orderCount = jdbcTemplate.queryForObject("select count(*) from orders", Integer.class);
+        assertEquals(orderCount, updated);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select total_price, line_count from orders where order_id = ?", orderId);
+        assertEquals(30000, ((Number) row.get("TOTAL_PRICE")).intValue());
+        assertEquals(1, ((Number) row.get("LINE_COUNT")).intValue());
+        int wrong = jdbcTemplate.queryForObject("select count(*) from orders o" +
+                " where o.total_price <> (select coalesce(sum(oi.order_price * oi.count), 0) from order_item oi where oi.order_id = o.order_id)" +
+                " or o.line_count <> (select count(*) from order_item oi where oi.order_id = o.order_id)", Integer.class);
+        assertEquals("다른 주문(InitDb)도 전부 맞아야 한다", 0, wrong);
+    }
+}
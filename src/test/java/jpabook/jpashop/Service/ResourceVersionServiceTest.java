@@ -0,0 +1,57 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.repository.ResourceVersionRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 버전 올리기 실패. db 오류는 repository가 예외를 던지는 것으로 흉내 냄 (ttl 0 -> 매번 다시 읽음)
+ */
+public class ResourceVersionServiceTest {
+
+    private ResourceVersionRepository resourceVersionRepository;
+    private ResourceVersionService resourceVersionService;
+
+    @Before
+    public void setUp() {
+        resourceVersionRepository = mock(ResourceVersionRepository.class);
+        when(resourceVersionRepository.findAll()).thenReturn(Collections.emptyList());
+        resourceVersionService = new ResourceVersionService(resourceVersionRepository,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class), 0);
+    }
+
+    @Test
+    public void 실패하면_다시_시도() throws Exception {
+        doThrow(new IllegalStateException("db down")).doNothing()
+                .when(resourceVersionRepository).bump(eq("ORDER"), anyLong());
+
+        resourceVersionService.bump(VersionedResource.ORDER); // 트랜잭션 밖이라 바로 올림
+
+        verify(resourceVersionRepository, times(2)).bump(eq("ORDER"), anyLong());
+        assertNotNull(resourceVersionService.etag("orders", VersionedResource.ORDER));
+    }
+
+    @Test
+    public void 끝내_실패하면_ETag를_끄고_다시_올라가면_켬() throws Exception {
+        doThrow(new IllegalStateException("db down"))
+                .when(resourceVersionRepository).bump(eq("ORDER"), anyLong());
+
+        resourceVersionService.bump(VersionedResource.ORDER);
+
+        assertNull("옛날 ETag로 304가 나가면 안 됨", resourceVersionService.etag("orders", VersionedResource.ORDER));
+        assertNotNull("다른 자원은 그대로", resourceVersionService.etag("members", VersionedResource.MEMBER));
+
+        // db가 돌아오면 스냅샷을 다시 읽을 때 다시 올림
+        doNothing().when(resourceVersionRepository).bump(eq("ORDER"), anyLong());
+        assertNotNull(resourceVersionService.etag("orders", VersionedResource.ORDER));
+    }
+}
@@ -0,0 +1,193 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.sales.ItemSalesDto;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * 집계는 주문이 커밋된 다음 별도 트랜잭션으로 반영되니까 테스트 트랜잭션 없이 실제로 커밋함
+ * 끝나면 테스트에서 만든 주문/상품/회원을 지우고 집계를 다시 계산해서 다른 테스트에 남지 않게 함
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SalesServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired SalesService salesService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate tx;
+    private Long memberId;
+    private Long itemId;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        memberId = tx.execute(s -> {
+            Member member = new Member();
+            member.setName("매출회원");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            return member.getId();
+        });
+        itemId = tx.execute(s -> {
+            Book book = new Book();
+            book.setName("매출 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        List<Long> deliveryIds = jdbcTemplate.queryForList("select delivery_id from orders where member_id = ?", Long.class, memberId);
+        jdbcTemplate.update("delete from order_summary where member_id = ?", memberId);
+        jdbcTemplate.update("delete from order_item where item_id = ?", itemId);
+        jdbcTemplate.update("delete from orders where member_id = ?", memberId);
+        deliveryIds.forEach(id -> jdbcTemplate.update("delete from delivery where delivery_id = ?", id));
+        jdbcTemplate.update("delete from item where item_id = ?", itemId);
+        jdbcTemplate.update("delete from member where member_id = ?", memberId);
+        salesService.rebuild();
+    }
+
+    @Test
+    public void 주문_취소_집계() throws Exception {
+        // given
+        orderService.order(memberId, itemId, 2);
+        Long canceledId = orderService.order(memberId, itemId, 3);
+
+        // when
+        orderService.cancelOrder(canceledId);
+
+        // then
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        SalesService.Result<ItemSalesDto> ordered = salesService.findItemSales(from, to, OrderStatus.ORDER, 100);
+        SalesService.Result<ItemSalesDto> canceled = salesService.findItemSales(from, to, OrderStatus.CANCEL, 100);
+        assertEquals("하루 단위 범위는 집계 테이블에서", "rollup", ordered.getSource());
+
+        ItemSalesDto row = find(ordered).orElseThrow(AssertionError::new);
+        assertEquals(20000, row.getRevenue());
+        assertEquals(2, row.getUnits());
+        assertEquals("B", row.getDtype());
+        assertEquals("취소분은 CANCEL로 옮겨감", 3, find(canceled).orElseThrow(AssertionError::new).getUnits());
+
+        // 시각이 들어간 범위는 원본 group by로 같은 값이 나와야 함
+        SalesService.Result<ItemSalesDto> raw = salesService.findItemSales(from.plusSeconds(1), to, OrderStatus.ORDER, 100);
+        assertEquals("raw", raw.getSource());
+        assertEquals(20000, find(raw).orElseThrow(AssertionError::new).getRevenue());
+    }
+
+    @Test
+    public void 두번_취소하면_예외_집계와_재고는_한번만() throws Exception {
+        // given
+        Long orderId = orderService.order(memberId, itemId, 3);
+        orderService.cancelOrder(orderId);
+
+        // when
+        try {
+            orderService.cancelOrder(orderId);
+            fail("예외가 발생해야 한다");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        SalesService.Result<ItemSalesDto> canceled = salesService.findItemSales(from, from.plusDays(1), OrderStatus.CANCEL, 100);
+        assertEquals("취소 수량이 두 번 옮겨지면 안 됨", 3, find(canceled).orElseThrow(AssertionError::new).getUnits());
+        assertEquals("재고도 한 번만 원복", 10, (int) jdbcTemplate.queryForObject(
+                "select stock_quantity from item where item_id = ?", Integer.class, itemId));
+    }
+
+    @Test
+    public void 롤백된_주문은_집계에_안_들어감() throws Exception {
+        // when
+        tx.executeWithoutResult(s -> {
+            orderService.order(memberId, itemId, 2);
+            s.setRollbackOnly();
+        });
+
+        // then
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        assertFalse(find(salesService.findItemSales(from, from.plusDays(1), OrderStatus.ORDER, 100)).isPresent());
+    }
+
+    @Test
+    public void 같은_날_같은_상품_첫_집계가_동시에_나가도_빠지지_않음() throws Exception {
+        // given: 아직 집계 row가 없는 상품에 주문 트랜잭션 여러 개가 동시에 커밋 -> merge의 insert끼리 부딪힘
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    tx.executeWithoutResult(s -> {
+                        Item item = em.find(Item.class, itemId);
+                        Order order = Order.createOrder(em.find(Member.class, memberId), new Delivery(),
+                                OrderItem.createReservedOrderItem(item, item.getPrice(), 1));
+                        em.persist(order);
+                        salesService.record(Collections.singletonList(order));
+                    });
+                    return null;
+                }));
+            }
+
+            // when
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        ItemSalesDto row = find(salesService.findItemSales(from, from.plusDays(1), OrderStatus.ORDER, 100))
+                .orElseThrow(AssertionError::new);
+        assertEquals("중복 키로 실패한 반영도 다시 해서 전부 들어가야 함", threads, row.getUnits());
+    }
+
+    private Optional<ItemSalesDto> find(SalesService.Result<ItemSalesDto> result) {
+        return result.getRows().stream()
+                .filter(r -> r.getItemId().equals(itemId))
+                .findFirst();
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.StockConflictException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * OPTIMISTIC 모드 재시도. 동시 변경은 updateStockIfVersion이 false(버전 불일치)를 돌려주는 것으로 흉내 냄
+ */
+public class StockServiceOptimisticTest {
+
+    private static final Long ITEM_ID = 1L;
+
+    private ItemRepository itemRepository;
+    private StockService stockService;
+
+    @Before
+    public void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        HotStockLedger hotStockLedger = mock(HotStockLedger.class);
+        when(itemRepository.findStockAndVersion(ITEM_ID)).thenReturn(new Object[]{10, 3L});
+        when(itemRepository.getReference(ITEM_ID)).thenReturn(new Book());
+        when(itemRepository.findPrice(ITEM_ID)).thenReturn(10000);
+        stockService = new StockService(itemRepository, hotStockLedger, StockMode.OPTIMISTIC, 3);
+    }
+
+    @Test
+    public void 충돌나면_다시_시도해서_성공() throws Exception {
+        when(itemRepository.updateStockIfVersion(ITEM_ID, 8, 3L)).thenReturn(false, false, true);
+
+        ReservedItem reserved = stockService.reserve(ITEM_ID, 2);
+
+        assertEquals(10000, reserved.getPrice());
+        verify(itemRepository, times(3)).updateStockIfVersion(ITEM_ID, 8, 3L);
+        verify(itemRepository, never()).findOne(anyLong());
+    }
+
+    @Test
+    public void 재시도_횟수를_넘으면_StockConflictException() throws Exception {
+        when(itemRepository.updateStockIfVersion(eq(ITEM_ID), anyInt(), anyLong())).thenReturn(false);
+
+        try {
+            stockService.reserve(ITEM_ID, 2);
+            fail("재시도를 다 쓰면 예외가 나야 한다");
+        } catch (StockConflictException e) {
+            verify(itemRepository, times(3)).updateStockIfVersion(ITEM_ID, 8, 3L);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.Service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughtStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.stock.mode=ATOMIC")
+@Transactional
+public class StockServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired ItemRepository itemRepository;
+
+    @Test
+    public void 주문_취소시_update로_재고_반영() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook(10);
+
+        // when
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+
+        // then
+        assertEquals("주문 수량만큼 재고가 줄어야 한다", 8, stockOf(book));
+
+        // when
+        orderService.cancelOrder(orderId);
+
+        // then
+        assertEquals("취소하면 재고가 돌아와야 한다", 10, stockOf(book));
+    }
+
+    @Test(expected = NotEnoughtStockException.class)
+    public void 재고수량초과() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook(10);
+
+        // when
+        orderService.order(member.getId(), book.getId(), 11);
+
+        // then
+        fail("재고 수량 부족 예외가 발생해야 한다.");
+    }
+
+    // 벌크 update는 영속성 컨텍스트를 거치지 않으니까 db 값을 직접 확인
+    private int stockOf(Book book) {
+        return (Integer) itemRepository.findStockAndVersion(book.getId())[0];
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
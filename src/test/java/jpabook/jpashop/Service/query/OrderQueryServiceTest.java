@@ -0,0 +1,86 @@
+package jpabook.jpashop.Service.query;
+
+import jpabook.jpashop.Service.OrderService;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.InvalidPageRequestException;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderQueryService orderQueryService;
+
+    @Test
+    public void 주문일이_같아도_빠짐없이_페이징() throws Exception {
+        // given - 주문일이 같은 주문 3건 (다른 주문보다 앞에 오도록 과거 날짜)
+        Member member = new Member();
+        member.setName("커서회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book = new Book();
+        book.setName("커서 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        LocalDateTime sameDate = LocalDateTime.of(2000, 1, 1, 0, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long orderId = orderService.order(member.getId(), book.getId(), 1);
+            orderRepository.findOne(orderId).setOrderDate(sameDate);
+            ids.add(orderId);
+        }
+        em.flush();
+        em.clear();
+
+        // when - 2건씩 두 페이지
+        OrderPage<OrderDto> first = orderQueryService.ordersV3_cursor(OrderCursor.first(true), 2);
+        OrderPage<OrderDto> second = orderQueryService.ordersV3_cursor(OrderCursor.decode(first.getNext()), 2);
+
+        // then
+        List<Long> paged = new ArrayList<>();
+        first.getData().forEach(o -> paged.add(o.getOrderId()));
+        paged.add(second.getData().get(0).getOrderId());
+        assertEquals("같은 주문일은 order_id 순서로, 중복/누락 없이", ids, paged);
+    }
+
+    @Test
+    public void limit_범위_밖이면_예외() throws Exception {
+        for (int limit : Arrays.asList(0, -1, OrderQueryService.MAX_PAGE_SIZE + 1)) {
+            try {
+                orderQueryService.ordersV3_cursor(OrderCursor.first(false), limit);
+                fail("limit=" + limit);
+            } catch (InvalidPageRequestException e) {
+                // ok
+            }
+            try {
+                orderQueryService.ordersV6_page(null, limit);
+                fail("v6 limit=" + limit);
+            } catch (InvalidPageRequestException e) {
+                // ok
+            }
+        }
+    }
+}
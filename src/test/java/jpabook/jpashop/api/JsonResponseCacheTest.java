@@ -0,0 +1,63 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.Service.ResourceChangedEvent;
+import jpabook.jpashop.Service.VersionedResource;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class JsonResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void 같은key는_직렬화된_바이트를_재사용() {
+        JsonResponseCache cache = new JsonResponseCache(new ObjectMapper(), 1000, 1000);
+
+        byte[] first = cache.get("a", EnumSet.of(VersionedResource.MEMBER), this::load);
+        byte[] second = cache.get("a", EnumSet.of(VersionedResource.MEMBER), this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("\"value1\"", new String(first, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void 용량을_넘으면_가장_오래_안쓴것부터_제거() {
+        JsonResponseCache cache = new JsonResponseCache(new ObjectMapper(), 20, 20); // "valueN" = 8 bytes
+
+        cache.get("a", EnumSet.of(VersionedResource.MEMBER), this::load);
+        cache.get("b", EnumSet.of(VersionedResource.MEMBER), this::load);
+        cache.get("a", EnumSet.of(VersionedResource.MEMBER), this::load); // a를 최근으로
+        cache.get("c", EnumSet.of(VersionedResource.MEMBER), this::load); // b가 밀려남
+
+        assertEquals(2, cache.size());
+        assertEquals(16, cache.sizeInBytes());
+        cache.get("a", EnumSet.of(VersionedResource.MEMBER), this::load);
+        assertEquals("a는 남아있어야 함", 3, loads.get());
+        cache.get("b", EnumSet.of(VersionedResource.MEMBER), this::load);
+        assertEquals("b는 다시 만들어야 함", 4, loads.get());
+    }
+
+    @Test
+    public void 자원이_바뀌면_그_자원에_걸린_응답만_제거() {
+        JsonResponseCache cache = new JsonResponseCache(new ObjectMapper(), 1000, 1000);
+        cache.get("members", EnumSet.of(VersionedResource.MEMBER), this::load);
+        cache.get("orders", EnumSet.of(VersionedResource.ORDER, VersionedResource.ITEM), this::load);
+
+        cache.onResourceChanged(new ResourceChangedEvent(EnumSet.of(VersionedResource.ITEM)));
+
+        assertEquals(1, cache.size());
+        cache.get("members", EnumSet.of(VersionedResource.MEMBER), this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private String load() {
+        return "value" + loads.incrementAndGet();
+    }
+}
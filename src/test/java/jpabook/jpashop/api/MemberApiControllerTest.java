@@ -0,0 +1,36 @@
+package jpabook.jpashop.api;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class MemberApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 고른_필드는_v2_응답에_있는_것만() throws Exception {
+        mockMvc.perform(get("/api/v2/members").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").exists())
+                .andExpect(jsonPath("$.data[0].id").doesNotExist());
+
+        mockMvc.perform(get("/api/v2/members").param("fields", "name,id"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v2/members").param("fields", "address"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.api;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 대량주문_잘못된_요청은_400() throws Exception {
+        String[] bodies = {
+                "{\"orders\": [{\"memberId\": 1, \"lines\": null}]}",                        // 주문상품 없음
+                "{\"orders\": [{\"lines\": [{\"itemId\": 1, \"count\": 1}]}]}",              // 회원 id 없음
+                "{\"orders\": [{\"memberId\": 1, \"lines\": [{\"count\": 1}]}]}",            // 상품 id 없음
+                "{\"orders\": [{\"memberId\": 1, \"lines\": [{\"itemId\": 1, \"count\": -3}]}]}", // 음수 수량
+                "{\"orders\": [{\"memberId\": 1, \"lines\": [{\"itemId\": 1, \"count\": 0}]}]}",
+        };
+        for (String body : bodies) {
+            mockMvc.perform(post("/api/v1/orders/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
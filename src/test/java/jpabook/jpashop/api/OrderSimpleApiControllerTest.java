@@ -0,0 +1,94 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.Service.OrderService;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.SqlCount;
+import jpabook.jpashop.monitoring.SqlStatisticsHeaderAdvice;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderSimpleApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+
+    @Before
+    public void setUp() {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        for (int i = 1; i <= 2; i++) {
+            Member member = new Member();
+            member.setName("회원" + i);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        em.flush(); // 저장 쿼리가 요청 SQL 수에 섞이지 않게
+        em.clear();
+    }
+
+    @Test
+    public void 페치조인_쿼리한번() throws Exception {
+        mockMvc.perform(get("/api/v3/simple-orders"))
+                .andExpect(status().isOk())
+                .andExpect(SqlCount.atMost(1))
+                .andExpect(SqlCount.noRepeatedStatements());
+    }
+
+    @Test
+    public void 지연로딩_N플러스1_감지() throws Exception {
+        String maxRepeat = mockMvc.perform(get("/api/v2/simple-orders"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(SqlStatisticsHeaderAdvice.SQL_MAX_REPEAT);
+
+        assertTrue("회원/배송 조회가 주문 수만큼 반복되어야 한다", Integer.parseInt(maxRepeat) >= 2);
+    }
+
+    @Test
+    public void 변경없으면_304() throws Exception {
+        String etag = mockMvc.perform(get("/api/v4/simple-orders"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/v4/simple-orders").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void 고른_필드만_조회() throws Exception {
+        mockMvc.perform(get("/api/v4/simple-orders").param("fields", "orderId,orderStatus"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderStatus").exists())
+                .andExpect(jsonPath("$[0].name").doesNotExist())
+                .andExpect(SqlCount.atMost(1));
+
+        mockMvc.perform(get("/api/v4/simple-orders").param("fields", "orderId,password"))
+                .andExpect(status().isBadRequest());
+    }
+}
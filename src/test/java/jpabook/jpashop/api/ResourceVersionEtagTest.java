@@ -0,0 +1,62 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.Service.MemberService;
+import jpabook.jpashop.domain.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 버전은 커밋된 다음에 올라가니까 테스트 트랜잭션 없이 실제로 커밋함
+ * 바꾼 회원 이름은 끝나고 되돌림
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ResourceVersionEtagTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+
+    private Long memberId;
+    private String originalName;
+
+    @Before
+    public void setUp() {
+        Member member = memberService.findMembers().get(0);
+        memberId = member.getId();
+        originalName = member.getName();
+    }
+
+    @After
+    public void tearDown() {
+        memberService.update(memberId, originalName);
+    }
+
+    @Test
+    public void 커밋된_변경은_새_ETag로_200() throws Exception {
+        String etag = mockMvc.perform(get("/api/v4/simple-orders"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        memberService.update(memberId, originalName + "-변경"); // 응답에 회원 이름이 들어감
+
+        String newEtag = mockMvc.perform(get("/api/v4/simple-orders").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(newEtag);
+        assertNotEquals(etag, newEtag);
+    }
+}
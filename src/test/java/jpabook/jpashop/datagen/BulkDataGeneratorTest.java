@@ -0,0 +1,91 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.Service.OrderService;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class BulkDataGeneratorTest {
+
+    @Autowired BulkDataGenerator bulkDataGenerator;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+
+    @Test
+    public void 소량_적재() throws Exception {
+        // given
+        DataGeneratorProperties props = new DataGeneratorProperties();
+        props.setMembers(20);
+        props.setItems(10);
+        props.setCategories(4);
+        props.setOrders(30);
+        props.setMinItemsPerOrder(1);
+        props.setMaxItemsPerOrder(3);
+        long members = count("member");
+        long items = count("item");
+        long categories = count("category");
+        long orders = count("orders");
+
+        // when
+        bulkDataGenerator.generate(props);
+
+        // then
+        assertEquals(members + 20, count("member"));
+        assertEquals(items + 10, count("item"));
+        assertEquals(categories + 4, count("category"));
+        assertEquals(orders + 30, count("orders"));
+        assertEquals("주문마다 배송 하나", count("orders"), count("delivery"));
+        Long lines = jdbcTemplate.queryForObject("select sum(line_count) from orders", Long.class);
+        assertEquals("line_count와 실제 주문상품 수가 같아야 한다", lines.longValue(), count("order_item"));
+    }
+
+    @Test
+    public void 예약한_id와_JPA가_만드는_id가_안_겹침() throws Exception {
+        // given
+        DataGeneratorProperties props = new DataGeneratorProperties();
+        props.setMembers(20);
+        props.setItems(10);
+        props.setCategories(0);
+        props.setOrders(30);
+        bulkDataGenerator.generate(props);
+        Set<Long> memberIds = ids("select member_id from member");
+        Set<Long> orderIds = ids("select order_id from orders");
+        Long itemId = jdbcTemplate.queryForObject("select max(item_id) from item", Long.class);
+
+        // when - 시퀀스로 id를 받는 저장
+        Member member = new Member();
+        member.setName("적재후회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Long orderId = orderService.order(member.getId(), itemId, 1);
+        em.flush(); // id가 겹치면 여기서 PK 위반
+
+        // then
+        assertFalse(memberIds.contains(member.getId()));
+        assertFalse(orderIds.contains(orderId));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+
+    private Set<Long> ids(String sql) {
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class));
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class RepositoryMetricsAspectTest {
+
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ItemRepository itemRepository;
+
+    @Test
+    public void 리포지토리_호출마다_타이머에_기록() throws Exception {
+        long before = count("MemberRepository", "findAll", "success");
+
+        memberRepository.findAll();
+        memberRepository.findAll();
+
+        assertEquals(before + 2, count("MemberRepository", "findAll", "success"));
+    }
+
+    @Test
+    public void 예외는_예외_이름으로_기록() throws Exception {
+        long before = count("ItemRepository", "findPrice", "IllegalArgumentException");
+
+        try {
+            itemRepository.findPrice(-1L); // 없는 상품
+            fail("예외가 발생해야 한다");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertEquals(before + 1, count("ItemRepository", "findPrice", "IllegalArgumentException"));
+    }
+
+    private long count(String className, String method, String outcome) {
+        Timer timer = meterRegistry.find("jpashop.repository")
+                .tag("class", className)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
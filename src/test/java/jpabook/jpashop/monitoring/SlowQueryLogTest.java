@@ -0,0 +1,60 @@
+package jpabook.jpashop.monitoring;
+
+import jpabook.jpashop.Service.MemberService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 기준을 0ms로 낮춰서 모든 SQL이 느린 쿼리로 잡히게 함
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.sql-stats.slow-query-ms=0",
+        "management.endpoints.web.exposure.include=slowqueries"
+})
+@AutoConfigureMockMvc
+public class SlowQueryLogTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+
+    @Test
+    public void 기준보다_느린_쿼리만_최근_것부터_남김() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(50, 2);
+
+        log.record("select 1", 10_000_000);  // 10ms
+        log.record("select 2", 60_000_000);  // 60ms
+        log.record("select 3", 70_000_000);
+        log.record("select 4", 80_000_000);  // 용량 2개 -> 제일 오래된 것부터 버림
+
+        assertEquals(2, log.slowQueries().size());
+        assertEquals("select 4", log.slowQueries().get(0).getSql());
+        assertEquals("select 3", log.slowQueries().get(1).getSql());
+        assertEquals(80, log.slowQueries().get(0).getElapsedMs());
+    }
+
+    @Test
+    public void 느린_쿼리는_actuator로_조회() throws Exception {
+        mockMvc.perform(delete("/actuator/slowqueries"))
+                .andExpect(status().is2xxSuccessful());
+
+        memberService.findMembers();
+
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sql", hasItem(containsStringIgnoringCase("from member"))));
+    }
+}
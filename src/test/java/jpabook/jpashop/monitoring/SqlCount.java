@@ -0,0 +1,58 @@
+package jpabook.jpashop.monitoring;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 테스트에서 "이 API는 쿼리를 K번 이하로 실행한다"를 고정하는 용도
+ * 매핑을 바꾸다가 N+1이 다시 생기면 테스트가 깨짐
+ *
+ * mockMvc.perform(get("/api/v3/simple-orders")).andExpect(SqlCount.atMost(1));
+ *
+ * SqlStatistics stats = SqlCount.capture(() -> orderService.findOrders(search));
+ * SqlCount.assertAtMost(stats, 2);
+ */
+public class SqlCount {
+
+    private SqlCount() {
+    }
+
+    public static ResultMatcher atMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlStatisticsHeaderAdvice.SQL_COUNT);
+            assertTrue("SQL 통계 헤더가 없음", header != null);
+            int count = Integer.parseInt(header);
+            assertTrue("SQL이 " + max + "번 이하여야 하는데 " + count + "번 실행됨", count <= max);
+        };
+    }
+
+    /**
+     * 같은 모양 SQL이 반복되지 않아야 함 (N+1 없음)
+     */
+    public static ResultMatcher noRepeatedStatements() {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlStatisticsHeaderAdvice.SQL_MAX_REPEAT);
+            assertTrue("SQL 통계 헤더가 없음", header != null);
+            assertTrue("같은 SQL이 " + header + "번 반복됨 (N+1)", Integer.parseInt(header) <= 1);
+        };
+    }
+
+    /**
+     * MockMvc를 거치지 않는 코드(서비스, 리포지토리)의 SQL 통계
+     */
+    public static SqlStatistics capture(Runnable action) {
+        SqlStatistics statistics = SqlStatisticsHolder.start();
+        try {
+            action.run();
+            return statistics;
+        } finally {
+            SqlStatisticsHolder.clear();
+        }
+    }
+
+    public static void assertAtMost(SqlStatistics statistics, int max) {
+        assertTrue("SQL이 " + max + "번 이하여야 하는데 " + statistics.getStatements() + "번 실행됨",
+                statistics.getStatements() <= max);
+    }
+}
@@ -0,0 +1,88 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.monitoring.SqlStatistics;
+import jpabook.jpashop.monitoring.SqlStatisticsHolder;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * 트랜잭션 밖에서만 chunk를 동시에 읽으니까 테스트 트랜잭션 없이 돌림 (읽기만 함)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ChunkedInLoaderTest {
+
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 마지막_chunk는_마지막_id로_채움() throws Exception {
+        List<List<Long>> chunks = ChunkedInLoader.chunks(Arrays.asList(1L, 2L, 3L, 4L, 5L), 2);
+
+        assertEquals(3, chunks.size());
+        assertEquals(Arrays.asList(1L, 2L), chunks.get(0));
+        assertEquals("sql 모양이 같도록 크기를 맞춤", Arrays.asList(5L, 5L), chunks.get(2));
+    }
+
+    @Test
+    public void 여러_chunk를_동시에_읽어도_in_하나와_같은_결과() throws Exception {
+        List<Long> orderIds = em.createQuery("select o.id from Order o order by o.id", Long.class).getResultList();
+        assertTrue("chunk가 둘 이상 나와야 함", orderIds.size() >= 2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ChunkedInLoader loader = new ChunkedInLoader(emf, 1, 2); // 주문 하나가 chunk 하나
+        try {
+            // when
+            List<OrderItemQueryDto> merged = loader.load(em, orderIds, (chunkEm, chunk) -> {
+                threads.add(Thread.currentThread().getName());
+                return findOrderItems(chunkEm, chunk);
+            });
+
+            // then
+            assertEquals(findOrderItems(em, orderIds), merged);
+            assertTrue("별도 스레드에서 읽어야 함: " + threads, threads.stream().anyMatch(t -> t.startsWith("in-loader-")));
+        } finally {
+            loader.destroy();
+        }
+    }
+
+    @Test
+    public void 다른_스레드에서_나간_sql도_요청_통계에_잡힘() throws Exception {
+        List<Long> orderIds = em.createQuery("select o.id from Order o order by o.id", Long.class).getResultList();
+        ChunkedInLoader loader = new ChunkedInLoader(emf, 1, 2);
+        SqlStatistics statistics = SqlStatisticsHolder.start();
+        try {
+            // when
+            loader.load(em, orderIds, ChunkedInLoaderTest::findOrderItems);
+        } finally {
+            SqlStatisticsHolder.clear();
+            loader.destroy();
+        }
+
+        // then
+        assertEquals("chunk마다 한 번씩", orderIds.size(), statistics.getStatements());
+    }
+
+    private static List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.item i" +
+                        " where oi.order.id in :orderIds" +
+                        " order by oi.order.id, oi.id", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class IdPagingTest {
+
+    @Test
+    public void id_페이지_순서대로_정렬() throws Exception {
+        List<Long> ids = Arrays.asList(30L, 10L, 20L);
+        List<Long> fetched = Arrays.asList(10L, 20L, 30L); // in 조회는 순서 보장 X
+
+        assertEquals(ids, IdPaging.inOrderOf(ids, fetched, Function.identity()));
+    }
+
+    @Test
+    public void 중간에_지워진_id는_빠짐() throws Exception {
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+
+        assertEquals(Arrays.asList(1L, 3L), IdPaging.inOrderOf(ids, Arrays.asList(3L, 1L), Function.identity()));
+    }
+}
@@ -0,0 +1,49 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.exception.InvalidPageRequestException;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderCursorTest {
+
+    @Test
+    public void 주문일_커서_복원() throws Exception {
+        LocalDateTime orderDate = LocalDateTime.of(2022, 9, 14, 13, 57, 4, 377149000);
+        OrderCursor cursor = OrderCursor.first(true).next(order(11L, orderDate));
+
+        OrderCursor decoded = OrderCursor.decode(cursor.encode());
+
+        assertTrue(decoded.isByOrderDate());
+        assertEquals(Long.valueOf(11L), decoded.getLastOrderId());
+        assertEquals(orderDate, decoded.getLastOrderDate());
+    }
+
+    @Test
+    public void id_커서_복원() throws Exception {
+        OrderCursor cursor = OrderCursor.first(false).next(order(4L, LocalDateTime.now()));
+
+        OrderCursor decoded = OrderCursor.decode(cursor.encode());
+
+        assertFalse(decoded.isByOrderDate());
+        assertEquals(Long.valueOf(4L), decoded.getLastOrderId());
+        assertNull("id 순서면 주문일은 안 담음", decoded.getLastOrderDate());
+    }
+
+    @Test(expected = InvalidPageRequestException.class)
+    public void 잘못된_토큰() throws Exception {
+        OrderCursor.decode("not-a-cursor");
+    }
+
+    private static Order order(Long id, LocalDateTime orderDate) {
+        Order order = mock(Order.class);
+        when(order.getId()).thenReturn(id);
+        when(order.getOrderDate()).thenReturn(orderDate);
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.repository;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitoring.SqlCount;
+import jpabook.jpashop.monitoring.SqlStatistics;
+import org.hibernate.Hibernate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderRepositoryTest {
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired EntityManager em;
+
+    private final ListAppender<ILoggingEvent> hibernateLog = new ListAppender<>();
+
+    @Before
+    public void setUp() {
+        hibernateLog.start();
+        ((Logger) LoggerFactory.getLogger("org.hibernate")).addAppender(hibernateLog);
+    }
+
+    @After
+    public void tearDown() {
+        ((Logger) LoggerFactory.getLogger("org.hibernate")).detachAppender(hibernateLog);
+    }
+
+    @Test
+    public void 컬렉션_페치조인_페이징은_db에서_자름() throws Exception {
+        // given: InitDb 주문 2건 + 2건 (주문상품 2개씩)
+        Member member = em.createQuery("select m from Member m", Member.class).setMaxResults(1).getSingleResult();
+        Item item = em.createQuery("select i from Item i", Item.class).setMaxResults(1).getSingleResult();
+        for (int i = 0; i < 2; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            em.persist(Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(item, 1000, 1), OrderItem.createOrderItem(item, 2000, 1)));
+        }
+        em.flush();
+        em.clear();
+        List<Long> allIds = em.createQuery("select o.id from Order o order by o.id", Long.class).getResultList();
+
+        // when: 한 페이지 1건씩, 두 번째 페이지
+        List<Order> page = new ArrayList<>();
+        SqlStatistics stats = SqlCount.capture(() -> page.addAll(orderRepository.findAllWithItem(1, 1)));
+
+        // then
+        assertEquals(1, page.size());
+        assertEquals(allIds.get(1), page.get(0).getId());
+        assertTrue(Hibernate.isInitialized(page.get(0).getOrderItems()));
+        assertEquals(2, page.get(0).getOrderItems().size());
+
+        assertEquals("id 페이지 + fetch join 두 번", 2, stats.getStatements());
+        assertTrue("id 쿼리에 limit이 붙어야 함: " + stats.getRepeatedStatements(1).keySet(),
+                stats.getRepeatedStatements(1).keySet().stream().anyMatch(sql -> sql.toLowerCase().contains(" limit ")));
+        assertTrue("메모리 페이징 경고(HHH000104)가 나오면 안 됨",
+                hibernateLog.list.stream().noneMatch(e -> e.getFormattedMessage().contains("HHH000104")));
+    }
+}
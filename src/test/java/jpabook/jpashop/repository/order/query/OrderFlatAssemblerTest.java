@@ -0,0 +1,62 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderFlatAssemblerTest {
+
+    @Test
+    public void 주문별로_조립() throws Exception {
+        // given
+        List<OrderFlatDto> rows = Arrays.asList(
+                row(4L, "JPA1 BOOK", 10000, 1),
+                row(4L, "JPA2 BOOK", 20000, 2),
+                row(11L, "SPRING1 BOOK", 20000, 3));
+
+        // when
+        List<OrderQueryDto> orders = OrderFlatAssembler.assemble(rows);
+
+        // then
+        assertEquals("주문 수", 2, orders.size());
+        assertEquals("정렬 순서 유지", Long.valueOf(4L), orders.get(0).getOrderId());
+        assertEquals(2, orders.get(0).getOrderItems().size());
+        assertEquals("JPA2 BOOK", orders.get(0).getOrderItems().get(1).getItemName());
+        assertEquals(1, orders.get(1).getOrderItems().size());
+    }
+
+    @Test
+    public void 주문_단위_limit() throws Exception {
+        // given
+        List<OrderFlatDto> rows = Arrays.asList(
+                row(1L, "A", 100, 1),
+                row(1L, "B", 100, 1),
+                row(2L, "C", 100, 1),
+                row(2L, "D", 100, 1),
+                row(3L, "E", 100, 1));
+
+        // when
+        List<OrderQueryDto> orders = OrderFlatAssembler.assemble(rows.iterator(), 2);
+
+        // then
+        assertEquals(2, orders.size());
+        assertEquals("마지막 주문의 상품이 잘리면 안 된다", 2, orders.get(1).getOrderItems().size());
+    }
+
+    @Test
+    public void 빈_결과() throws Exception {
+        assertTrue(OrderFlatAssembler.assemble(Collections.emptyList()).isEmpty());
+    }
+
+    private static OrderFlatDto row(Long orderId, String itemName, int orderPrice, int count) {
+        return new OrderFlatDto(orderId, "userA", LocalDateTime.now(), OrderStatus.ORDER,
+                new Address("서울", "1", "1111"), itemName, orderPrice, count);
+    }
+}
@@ -0,0 +1,80 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.order.jdbc.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryRepositoryTest {
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderJdbcQueryRepository orderJdbcQueryRepository;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired EntityManager em;
+
+    @Test
+    public void db_JSON은_v5와_같은_모양() throws Exception {
+        // InitDb 주문 (소수점 있는 시각) + 소수점 없는 주문 시각 (2000-01-01T00:00:00)
+        Member member = em.find(Member.class, anyMemberId());
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery,
+                OrderItem.createOrderItem(em.find(Item.class, anyItemId()), 1000, 1));
+        order.setOrderDate(LocalDateTime.of(2000, 1, 1, 0, 0));
+        em.persist(order);
+        em.flush();
+
+        // valueToTree는 Long을 LongNode로 두고 readTree는 작은 수를 IntNode로 읽어서 값이 같아도 다르다고 나옴
+        // -> v5 응답도 JSON 문자열로 만든 다음 같은 방식으로 읽어서 비교
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(orderQueryRepository.findAllByDto_optimization()));
+        JsonNode actual = objectMapper.readTree(orderQueryRepository.findAllByDto_json());
+
+        assertTrue(expected.size() >= 3);
+        assertEquals("orderDate, lineCount, 주문상품 순서까지 전부 같아야 함", expected, actual);
+    }
+
+    private Long anyMemberId() {
+        return em.createQuery("select min(m.id) from Member m", Long.class).getSingleResult();
+    }
+
+    private Long anyItemId() {
+        return em.createQuery("select min(i.id) from Item i", Long.class).getSingleResult();
+    }
+
+    @Test
+    public void JDBC_조회는_JPA와_같은_결과() throws Exception {
+        // 주문/주문상품 순서까지 같아야 함 (둘 다 id 순서)
+        Member member = em.find(Member.class, anyMemberId());
+        Item item = em.find(Item.class, anyItemId());
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        em.persist(Order.createOrder(member, delivery,
+                OrderItem.createOrderItem(item, 3000, 1), OrderItem.createOrderItem(item, 1000, 2)));
+        em.flush(); // JDBC는 flush 안 된 변경을 못 봄
+
+        assertEquals(objectMapper.valueToTree(orderQueryRepository.findAllByDto_optimization()),
+                objectMapper.valueToTree(orderJdbcQueryRepository.findAllByDto_optimization()));
+        assertEquals(objectMapper.valueToTree(orderSimpleQueryRepository.findOrderDtos()),
+                objectMapper.valueToTree(orderJdbcQueryRepository.findOrderDtos()));
+    }
+}